@@ -0,0 +1,240 @@
+package benchmarks;
+
+import colilision.HitRecord;
+import collections.GameEnvironment;
+import entities.Block;
+import geometry.Line;
+import geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CollisionBenchmarks class measures the geometry and collision hot paths: Line.intersectionWith,
+ * Rectangle.intersectionPoints, Line.closestIntersectionToStartOfLine, Rectangle.closestIntersection and
+ * GameEnvironment.getClosestCollision, on the game's own block layout and on 10x and 100x copies of it.
+ * Every benchmark cycles through a few thousand inputs prepared up front, so the branches are not predicted
+ * from a single input.
+ * <p>
+ * Run with {@code gradle jmh -Pjmh=CollisionBenchmarks}; the GC profiler reports the bytes allocated per
+ * operation as gc.alloc.rate.norm.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class CollisionBenchmarks {
+    private static final int INPUTS = 4096; // Distinct inputs per benchmark, cycled through; a power of two
+    private static final double SEGMENT_LENGTH = 30;
+
+    /**
+     * Segments close to the blocks of the game layout, each paired with the block and one of its sides.
+     */
+    @State(Scope.Thread)
+    public static class Shapes {
+        private double[][] segments;
+        private Line[] lines;
+        private Rectangle[] rects;
+        private Line[] sides;
+        private int radius;
+        private final HitRecord hit = new HitRecord();
+        private int next;
+
+        /**
+         * Builds the inputs.
+         */
+        @Setup
+        public void setup() {
+            Layouts layout = new Layouts(1);
+            List<Block> blocks = layout.getBlocks();
+            segments = layout.segmentsNearBlocks(INPUTS, SEGMENT_LENGTH, 1);
+            lines = new Line[INPUTS];
+            rects = new Rectangle[INPUTS];
+            sides = new Line[INPUTS];
+            for (int i = 0; i < INPUTS; i++) {
+                double[] s = segments[i];
+                lines[i] = new Line(s[0], s[1], s[2], s[3]);
+                rects[i] = blocks.get((int) s[4]).getCollisionRectangle();
+                sides[i] = rects[i].getRectSides().get(i % 4);
+            }
+            radius = layout.getBallRadius();
+        }
+
+        /**
+         * Returns the index of the next input.
+         *
+         * @return the index
+         */
+        private int next() {
+            next = (next + 1) & (INPUTS - 1);
+            return next;
+        }
+    }
+
+    /**
+     * Ball steps through a whole level, indexed by one of the broadphases.
+     */
+    @State(Scope.Thread)
+    public static class Level {
+        /** The number of copies of the game layout in the level. */
+        @Param({"1", "10", "100"})
+        public int scale;
+
+        /** The broadphase indexing the blocks. */
+        @Param({"LINEAR", "GRID", "BVH"})
+        public GameEnvironment.Broadphase broadphase;
+
+        private GameEnvironment env;
+        private double[][] steps;
+        private Line[] lines;
+        private int radius;
+        private final HitRecord hit = new HitRecord();
+        private int next;
+
+        /**
+         * Builds the level and the inputs.
+         */
+        @Setup
+        public void setup() {
+            Layouts layout = new Layouts(scale);
+            env = new GameEnvironment();
+            env.setBroadphase(broadphase);
+            for (Block b : layout.getBlocks()) {
+                env.addCollidable(b);
+            }
+            steps = layout.ballSteps(INPUTS, scale);
+            lines = new Line[INPUTS];
+            for (int i = 0; i < INPUTS; i++) {
+                lines[i] = new Line(steps[i][0], steps[i][1], steps[i][2], steps[i][3]);
+            }
+            radius = layout.getBallRadius();
+        }
+
+        /**
+         * Returns the index of the next input.
+         *
+         * @return the index
+         */
+        private int next() {
+            next = (next + 1) & (INPUTS - 1);
+            return next;
+        }
+    }
+
+    /**
+     * Intersects a segment with a side of a block.
+     *
+     * @param s  the inputs
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void lineIntersectionWith(Shapes s, Blackhole bh) {
+        int i = s.next();
+        bh.consume(s.lines[i].intersectionWith(s.sides[i]));
+    }
+
+    /**
+     * Intersects a segment with the sides of a block.
+     *
+     * @param s  the inputs
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void rectangleIntersectionPoints(Shapes s, Blackhole bh) {
+        int i = s.next();
+        bh.consume(s.rects[i].intersectionPoints(s.lines[i]));
+    }
+
+    /**
+     * Finds the intersection of a segment with a block closest to its start.
+     *
+     * @param s  the inputs
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void lineClosestIntersectionToStartOfLine(Shapes s, Blackhole bh) {
+        int i = s.next();
+        bh.consume(s.lines[i].closestIntersectionToStartOfLine(s.rects[i]));
+    }
+
+    /**
+     * Finds the first hit of a point moving along a segment with a block, without allocating.
+     *
+     * @param s  the inputs
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void rectangleClosestIntersection(Shapes s, Blackhole bh) {
+        int i = s.next();
+        double[] seg = s.segments[i];
+        s.hit.reset();
+        bh.consume(s.rects[i].closestIntersection(seg[0], seg[1], seg[2], seg[3], null, s.hit));
+        bh.consume(s.hit.getT());
+    }
+
+    /**
+     * Finds the first hit of a ball moving along a segment with a block.
+     *
+     * @param s  the inputs
+     * @param bh consumes the result
+     */
+    @Benchmark
+    public void rectangleClosestSweptIntersection(Shapes s, Blackhole bh) {
+        int i = s.next();
+        double[] seg = s.segments[i];
+        s.hit.reset();
+        bh.consume(s.rects[i].closestSweptIntersection(seg[0], seg[1], seg[2], seg[3], s.radius, null, s.hit));
+        bh.consume(s.hit.getT());
+    }
+
+    /**
+     * Finds the closest collision of a ball step with the level, through the allocating Line query.
+     *
+     * @param level the level and inputs
+     * @param bh    consumes the result
+     */
+    @Benchmark
+    public void closestCollisionLine(Level level, Blackhole bh) {
+        bh.consume(level.env.getClosestCollision(level.lines[level.next()]));
+    }
+
+    /**
+     * Finds the closest collision of a point moving one ball step with the level, without allocating.
+     *
+     * @param level the level and inputs
+     * @param bh    consumes the result
+     */
+    @Benchmark
+    public void closestCollisionPoint(Level level, Blackhole bh) {
+        double[] s = level.steps[level.next()];
+        bh.consume(level.env.getClosestCollision(s[0], s[1], s[2], s[3], level.hit));
+        bh.consume(level.hit.getT());
+    }
+
+    /**
+     * Finds the closest collision of a ball moving one step with the level, without allocating.
+     *
+     * @param level the level and inputs
+     * @param bh    consumes the result
+     */
+    @Benchmark
+    public void closestCollisionSwept(Level level, Blackhole bh) {
+        double[] s = level.steps[level.next()];
+        bh.consume(level.env.getClosestCollision(s[0], s[1], s[2], s[3], level.radius, level.hit));
+        bh.consume(level.hit.getT());
+    }
+}
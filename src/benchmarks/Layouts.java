@@ -0,0 +1,168 @@
+package benchmarks;
+
+import entities.Block;
+import game.Game;
+import game.LevelBuilder;
+import game.ScriptedKeyboardSensor;
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The Layouts class builds block levels for benchmarks with Game.buildLayout: the layout of the game itself,
+ * and scaled-up variants made of several copies of it tiled side by side inside a single frame.
+ */
+public class Layouts implements LevelBuilder {
+    private final List<Block> blocks = new ArrayList<>();
+    private final List<Block> frames = new ArrayList<>();
+    private double frameSize;  // Thickness of the frame
+    private double left = Double.POSITIVE_INFINITY; // Outer edges of the frame
+    private double right;
+    private double bottom = Double.POSITIVE_INFINITY;
+    private double top;
+    private int ballRadius;
+    private double ballSpeed;
+
+    /**
+     * Builds a level made of the given number of copies of the game layout, tiled in the most square grid
+     * of screens that holds exactly that many, and surrounded by a single frame.
+     *
+     * @param copies the number of copies of the game layout; 1 gives the layout of the game itself
+     */
+    public Layouts(int copies) {
+        int columns = (int) Math.ceil(Math.sqrt(copies));
+        while (copies % columns != 0) {
+            columns++;
+        }
+        new Game(new ScriptedKeyboardSensor()).buildLayout(this, columns, copies / columns);
+        blocks.addAll(frames);
+    }
+
+    /**
+     * Adds a block of the layout: the breakable blocks in the order they are built, and the frame after them.
+     *
+     * @param x           the x-coordinate of the upper-left point of the block
+     * @param y           the y-coordinate of the upper-left point of the block
+     * @param w           the width of the block
+     * @param h           the height of the block
+     * @param color       the color of the block
+     * @param points      the points scored for breaking the block
+     * @param breakable   whether balls break the block
+     * @param deathRegion whether the block removes the balls that hit it
+     */
+    @Override
+    public void addBlock(double x, double y, double w, double h, Color color, int points, boolean breakable,
+                         boolean deathRegion) {
+        Block b = new Block(new Point(x, y), w, h, color);
+        b.setPoints(points);
+        b.setBreakable(breakable);
+        b.setDeathRegion(deathRegion);
+        if (breakable) {
+            blocks.add(b);
+            return;
+        }
+        if (frames.isEmpty()) {
+            frameSize = Math.min(w, h);
+        }
+        frames.add(b);
+        left = Math.min(left, x);
+        right = Math.max(right, x + w);
+        bottom = Math.min(bottom, y);
+        top = Math.max(top, y);
+    }
+
+    /**
+     * Ignores the paddle, which moves, so it is not part of the block levels.
+     *
+     * @param x     the x-coordinate of the upper-left point of the paddle
+     * @param y     the y-coordinate of the upper-left point of the paddle
+     * @param w     the width of the paddle
+     * @param h     the height of the paddle
+     * @param speed the distance the paddle moves per tick
+     * @param l     the left boundary for the paddle
+     * @param r     the right boundary for the paddle
+     */
+    @Override
+    public void setPaddle(double x, double y, double w, double h, double speed, int l, int r) {
+    }
+
+    /**
+     * Keeps the radius and speed of the balls of the layout, for the ball steps.
+     *
+     * @param x      the x-coordinate of the ball's center
+     * @param y      the y-coordinate of the ball's center
+     * @param radius the radius of the ball
+     * @param angle  the launch angle, in radians
+     * @param speed  the distance the ball moves per tick
+     * @param color  the color of the ball
+     */
+    @Override
+    public void addBall(double x, double y, int radius, double angle, double speed, Color color) {
+        this.ballRadius = radius;
+        this.ballSpeed = speed;
+    }
+
+    /**
+     * Returns the blocks of this level, frames last.
+     *
+     * @return the list of blocks
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the radius of the balls of the layout.
+     *
+     * @return the ball radius
+     */
+    public int getBallRadius() {
+        return ballRadius;
+    }
+
+    /**
+     * Creates random ball steps inside the frame of the level: a start point anywhere in it and an end point
+     * one step of the game's ball speed away, in a random direction.
+     *
+     * @param count the number of steps
+     * @param seed  the random seed
+     * @return the steps, as {x0, y0, x1, y1} rows
+     */
+    public double[][] ballSteps(int count, long seed) {
+        Random rand = new Random(seed);
+        double[][] steps = new double[count][];
+        for (int i = 0; i < count; i++) {
+            double x = left + frameSize + rand.nextDouble() * (right - left - 2 * frameSize);
+            double y = bottom + rand.nextDouble() * (top - bottom - frameSize);
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            steps[i] = new double[] {x, y, x + ballSpeed * Math.cos(angle), y + ballSpeed * Math.sin(angle)};
+        }
+        return steps;
+    }
+
+    /**
+     * Creates random segments that start close to a random block, so a good share of them cross it.
+     *
+     * @param count  the number of segments
+     * @param length the length of every segment
+     * @param seed   the random seed
+     * @return the segments, as {x0, y0, x1, y1, blockIndex} rows
+     */
+    public double[][] segmentsNearBlocks(int count, double length, long seed) {
+        Random rand = new Random(seed);
+        double[][] segments = new double[count][];
+        for (int i = 0; i < count; i++) {
+            int index = rand.nextInt(blocks.size() - frames.size());
+            Rectangle rect = blocks.get(index).getCollisionRectangle();
+            double x = rect.getLeftBottom().getX() - length + rand.nextDouble() * (rect.getWidth() + 2 * length);
+            double y = rect.getLeftBottom().getY() - length + rand.nextDouble() * (rect.getHeight() + 2 * length);
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            segments[i] = new double[] {x, y, x + length * Math.cos(angle), y + length * Math.sin(angle), index};
+        }
+        return segments;
+    }
+}
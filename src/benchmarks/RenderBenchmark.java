@@ -0,0 +1,102 @@
+package benchmarks;
+
+import game.Game;
+import game.ScriptedKeyboardSensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import render.Java2DBackend;
+import render.NullBackend;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RenderBenchmark class measures the cost of drawing a frame apart from the cost of simulating it. For each
+ * ball count it builds a headless multiball game, advances it a few ticks so the balls spread out, and then
+ * renders the same frame over and over with Game.render:
+ * <ul>
+ * <li>with a NullBackend, which measures recording the frame into its command list alone;</li>
+ * <li>with an off-screen Java2DBackend, which adds the rasterization of every command.</li>
+ * </ul>
+ * <p>
+ * Run with {@code gradle jmh -Pjmh=RenderBenchmark}. The number of commands and color changes per frame is
+ * printed at the end of each NullBackend trial.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private static final int SPREAD_TICKS = 60; // Ticks run before measuring, so the balls do not overlap
+    private static final long SEED = 1;
+
+    /** The number of balls in the frame. */
+    @Param({"3", "100", "1000", "10000"})
+    public int balls;
+
+    private Game game;
+    private NullBackend none;
+    private Java2DBackend java2d;
+
+    /**
+     * Builds the game and advances it to the frame that is drawn.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        game = new Game(new ScriptedKeyboardSensor(), SEED);
+        game.setBallCount(balls);
+        game.setMultiball(true);
+        game.initialize();
+        game.runHeadless(SPREAD_TICKS);
+        none = new NullBackend();
+        java2d = new Java2DBackend(game.getScreenWidth(), game.getScreenHeight());
+    }
+
+    /**
+     * Prints the size of the recorded frames.
+     */
+    @TearDown(Level.Trial)
+    public void report() {
+        long frames = none.getFrames();
+        if (frames > 0) {
+            System.out.println(String.format("balls=%d: %.1f commands/frame, %.1f color changes/frame", balls,
+                    (double) none.getCommands() / frames, (double) none.getColorChanges() / frames));
+        }
+    }
+
+    /**
+     * Records a frame without drawing it.
+     *
+     * @param bh consumes the number of commands recorded so far
+     */
+    @Benchmark
+    public void renderNull(Blackhole bh) {
+        game.render(none, 0.5);
+        bh.consume(none.getCommands());
+    }
+
+    /**
+     * Records a frame and rasterizes it into an off-screen image.
+     *
+     * @param bh consumes a pixel of the image
+     */
+    @Benchmark
+    public void renderJava2d(Blackhole bh) {
+        game.render(java2d, 0.5);
+        bh.consume(java2d.getImage().getRGB(0, 0));
+    }
+}
@@ -0,0 +1,148 @@
+package benchmarks;
+
+import entities.Ball;
+import game.Game;
+import game.ScriptedKeyboardSensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TickBenchmark class measures the whole engine end to end. For each ball count it builds a complete
+ * headless game (frames, blocks, paddle, balls and the listeners wired by Game.updateCounters) and ticks it:
+ * <ul>
+ * <li>run plays a fresh game for a fixed number of ticks, even after the game is over, so every ball count
+ * covers the same amount of simulated time; the score is the mean time per tick, and the GC profiler's
+ * gc.alloc.rate.norm the bytes allocated per tick;</li>
+ * <li>tick samples the latency of single ticks of such games, for the p50 and p99 tick latencies.</li>
+ * </ul>
+ * <p>
+ * Every ball count is measured with one Ball object per ball, in multiball mode, where the balls are stored in
+ * a single BallSystem, and in multiball mode with the physics step spread over all processors, each with the
+ * point and the swept-circle collision modes.
+ * Run with {@code gradle jmh -Pjmh=TickBenchmark}; the machine-readable report is written to
+ * build/jmh/results.json.
+ * </p>
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    private static final int TICKS = 2000; // Ticks played by every game
+    private static final long SEED = 1;    // Seed of the launch angles, the same for every game
+
+    /**
+     * How the balls of a game are stored and moved.
+     */
+    public enum Storage {
+        /** One Ball object per ball. */
+        BALLS,
+        /** A single BallSystem. */
+        MULTIBALL,
+        /** A single BallSystem, with the physics step spread over all processors. */
+        PARALLEL
+    }
+
+    /** The number of balls launched. */
+    @Param({"3", "10", "30", "100", "300", "1000", "3000", "10000"})
+    public int balls;
+
+    /** How the balls are stored. */
+    @Param({"BALLS", "MULTIBALL", "PARALLEL"})
+    public Storage storage;
+
+    /** How the balls detect collisions. */
+    @Param({"POINT", "SWEPT_CIRCLE"})
+    public Ball.CollisionMode collisionMode;
+
+    private ForkJoinPool pool; // Shared by the games of a trial in PARALLEL storage
+    private Game game;
+
+    /**
+     * Creates the physics pool of the trial.
+     */
+    @Setup(Level.Trial)
+    public void createPool() {
+        if (storage == Storage.PARALLEL) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Shuts the physics pool of the trial down.
+     */
+    @TearDown(Level.Trial)
+    public void shutDownPool() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Builds a fresh game for every iteration.
+     */
+    @Setup(Level.Iteration)
+    public void createGame() {
+        game = new Game(new ScriptedKeyboardSensor(), SEED);
+        game.setBallCount(balls);
+        game.setMultiball(storage != Storage.BALLS);
+        game.setPhysicsPool(pool);
+        game.setCollisionMode(collisionMode);
+        game.initialize();
+    }
+
+    /**
+     * Replaces the game once it has played its ticks, so tick latencies are sampled over the same stretch
+     * of play as run.
+     */
+    @Setup(Level.Invocation)
+    public void restartIfDone() {
+        if (game.getTicks() >= TICKS) {
+            createGame();
+        }
+    }
+
+    /**
+     * Plays a fresh game for a fixed number of ticks.
+     *
+     * @param bh consumes the state left after every tick
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(TICKS)
+    public void run(Blackhole bh) {
+        for (int i = 0; i < TICKS; i++) {
+            game.tick();
+            bh.consume(game.getRemainingBalls());
+        }
+    }
+
+    /**
+     * Plays a single tick.
+     *
+     * @param bh consumes the state left after the tick
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public void tick(Blackhole bh) {
+        game.tick();
+        bh.consume(game.getRemainingBalls());
+    }
+}
@@ -30,4 +30,18 @@ public interface Collidable {
      * @return The new velocity of the colliding object after the collision.
      */
     Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
+
+    /**
+     * Handles a collision with this collidable object, described by a hit record.
+     * The record also tells which side of the collision rectangle was struck, so implementations
+     * can use it instead of re-testing the collision point against each side.
+     *
+     * @param hitter           The ball that hit this object.
+     * @param hit              The collision, as found by a collision query.
+     * @param currentVelocity  The current velocity of the colliding object.
+     * @return The new velocity of the colliding object after the collision.
+     */
+    default Velocity hit(Ball hitter, HitRecord hit, Velocity currentVelocity) {
+        return hit(hitter, hit.collisionPoint(), currentVelocity);
+    }
 }
@@ -0,0 +1,159 @@
+
+package colilision;
+import geometry.Point;
+import geometry.Rectangle;
+
+/**
+ * colilision.HitRecord is a reusable, mutable counterpart of colilision.CollisionInfo.
+ * Collision queries write their result into a record owned by the caller instead of allocating a new
+ * object, so the same record can be used for every step of a moving object.
+ */
+public class HitRecord {
+    private final Point collisionP; // Reused for every hit written into this record
+    private double t; // Position of the hit along the queried segment, 0 at its start and 1 at its end
+    private Rectangle.Side side; // The side of the collision rectangle that was struck
+    private boolean corner; // Whether the collision point is also on the side perpendicular to the struck one
+    private Collidable collisionObj;
+    private double normalX; // Unit contact normal of a hit on a rounded corner, (0, 0) for a hit on a side
+    private double normalY;
+
+    /**
+     * Constructs a new, empty HitRecord.
+     */
+    public HitRecord() {
+        this.collisionP = new Point(0, 0);
+        reset();
+    }
+
+    /**
+     * Clears this record so it holds no collision.
+     */
+    public void reset() {
+        this.t = Double.POSITIVE_INFINITY;
+        this.side = null;
+        this.corner = false;
+        this.collisionObj = null;
+        this.normalX = 0;
+        this.normalY = 0;
+    }
+
+    /**
+     * Stores a collision in this record, replacing the previous one.
+     *
+     * @param x      The x-coordinate of the collision point.
+     * @param y      The y-coordinate of the collision point.
+     * @param t      The position of the collision along the queried segment.
+     * @param side   The side of the collision rectangle that was struck.
+     * @param corner Whether the collision point is also on the perpendicular side.
+     * @param c      The collidable object involved in the collision.
+     */
+    public void set(double x, double y, double t, Rectangle.Side side, boolean corner, Collidable c) {
+        this.collisionP.setX(x);
+        this.collisionP.setY(y);
+        this.t = t;
+        this.side = side;
+        this.corner = corner;
+        this.collisionObj = c;
+        this.normalX = 0;
+        this.normalY = 0;
+    }
+
+    /**
+     * Sets the contact normal of the collision stored last, for a moving circle that struck a corner of the
+     * rectangle with its round edge rather than one of its sides.
+     *
+     * @param nx The x component of the normal, pointing from the corner to the circle's center.
+     * @param ny The y component of the normal.
+     */
+    public void setCornerNormal(double nx, double ny) {
+        double length = Math.sqrt(nx * nx + ny * ny);
+        if (length > 0) {
+            this.normalX = nx / length;
+            this.normalY = ny / length;
+        }
+    }
+
+    /**
+     * Returns whether the collision is a moving circle striking a corner, which has a contact normal that is
+     * not perpendicular to a side.
+     *
+     * @return True if getNormalX and getNormalY give the contact normal, false otherwise.
+     */
+    public boolean hasCornerNormal() {
+        return this.normalX != 0 || this.normalY != 0;
+    }
+
+    /**
+     * Returns the x component of the unit contact normal of a corner collision.
+     *
+     * @return The x component, 0 if the collision is not on a corner.
+     */
+    public double getNormalX() {
+        return this.normalX;
+    }
+
+    /**
+     * Returns the y component of the unit contact normal of a corner collision.
+     *
+     * @return The y component, 0 if the collision is not on a corner.
+     */
+    public double getNormalY() {
+        return this.normalY;
+    }
+
+    /**
+     * Returns whether this record holds a collision.
+     *
+     * @return True if a collision was stored since the last reset, false otherwise.
+     */
+    public boolean hasHit() {
+        return this.t != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the point at which the collision occurs.
+     * The returned point is owned by this record and changes with the next stored collision.
+     *
+     * @return The collision point.
+     */
+    public Point collisionPoint() {
+        return this.collisionP;
+    }
+
+    /**
+     * Returns the position of the collision along the queried segment.
+     *
+     * @return A value between 0 (segment start) and 1 (segment end), or infinity if there is no collision.
+     */
+    public double getT() {
+        return this.t;
+    }
+
+    /**
+     * Returns the side of the collision rectangle that was struck.
+     *
+     * @return The struck side, or null if there is no collision.
+     */
+    public Rectangle.Side side() {
+        return this.side;
+    }
+
+    /**
+     * Returns whether the collision point lies on a corner, i.e. also on the side perpendicular
+     * to the struck one.
+     *
+     * @return True for a corner hit, false otherwise.
+     */
+    public boolean isCorner() {
+        return this.corner;
+    }
+
+    /**
+     * Returns the collidable object involved in the collision.
+     *
+     * @return The collidable object, or null if there is no collision.
+     */
+    public Collidable collisionObject() {
+        return this.collisionObj;
+    }
+}
@@ -0,0 +1,598 @@
+package collections;
+import colilision.Collidable;
+import colilision.HitRecord;
+import geometry.Rectangle;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The BoundingVolumeHierarchy class is a broadphase index for collidable objects that adapts to where they are,
+ * unlike UniformGrid, whose cost follows the area the level spans. The collidables' collision rectangles are
+ * grouped into a binary tree of bounding boxes, built with the surface area heuristic (in two dimensions, the
+ * chance that a segment crosses a box grows with its perimeter), and a trajectory query descends only into the
+ * boxes the moving circle enters, nearest first, skipping any box it enters after the closest collision found.
+ * <p>
+ * The tree is built again on the first query after a collidable is added. A removed collidable is taken out of
+ * its leaf and the boxes above it are shrunk, so breaking blocks during a level never rebuilds the tree.
+ * </p>
+ */
+public class BoundingVolumeHierarchy {
+    // Tolerance for comparing floating-point numbers, matches the one used by the geometry classes
+    private static final double EPSILON = 0.0001;
+    private static final int BINS = 16;          // Candidate split positions per axis when building
+    private static final int MAX_LEAF_SIZE = 4;  // Leaves hold at most this many collidables, unless too deep
+    private static final int MAX_DEPTH = 48;     // Bounds the recursion of build and query
+    private static final double TRAVERSAL_COST = 1; // Cost of visiting a node, relative to testing a rectangle
+
+    // The leaf every indexed collidable is in, in the order they were added so builds are repeatable
+    private final Map<Collidable, Entry> entries;
+    private volatile boolean dirty; // Whether a collidable was added since the tree was built
+    private Entry[] items;          // Collidables, those of every leaf stored together
+    private double[] minX;          // Node bounds; min greater than max for a node left empty by removals
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int[] left;             // Index of the left child, the right one follows it; -1 for a leaf
+    private int[] parent;           // -1 for the root
+    private int[] start;            // First item of a leaf
+    private int[] count;            // Number of items of a leaf
+    private int nodeCount;
+
+    /**
+     * A collidable indexed in the tree, with the bounds it was indexed with and its place in the items.
+     */
+    private static final class Entry {
+        private final Collidable collidable;
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private int leaf;
+        private int index;
+
+        /**
+         * Constructs a new Entry for the given collidable.
+         *
+         * @param c The collidable this entry stands for.
+         */
+        Entry(Collidable c) {
+            this.collidable = c;
+            bound();
+        }
+
+        /**
+         * Reads the bounds of the collidable's current collision rectangle.
+         */
+        void bound() {
+            Rectangle rect = collidable.getCollisionRectangle();
+            minX = Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX());
+            maxX = Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX());
+            minY = Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY());
+            maxY = Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY());
+        }
+    }
+
+    /**
+     * Constructs a new, empty BoundingVolumeHierarchy.
+     */
+    public BoundingVolumeHierarchy() {
+        this.entries = new LinkedHashMap<>();
+        this.items = new Entry[0];
+        this.nodeCount = 0;
+    }
+
+    /**
+     * Adds a collidable object to the hierarchy, using its current collision rectangle. The tree is built again
+     * on the next query.
+     *
+     * @param c The collidable object to add.
+     */
+    public void add(Collidable c) {
+        if (c == null || entries.containsKey(c)) {
+            return;
+        }
+        entries.put(c, new Entry(c));
+        dirty = true;
+    }
+
+    /**
+     * Removes a collidable object from the hierarchy, shrinking the boxes that held it.
+     *
+     * @param c The collidable object to remove.
+     */
+    public void remove(Collidable c) {
+        Entry e = entries.remove(c);
+        if (e == null || dirty) {
+            return;
+        }
+        int leaf = e.leaf;
+        int last = start[leaf] + count[leaf] - 1;
+        Entry moved = items[last];
+        items[e.index] = moved;
+        moved.index = e.index;
+        items[last] = null;
+        count[leaf]--;
+        refit(leaf);
+    }
+
+    /**
+     * Updates the bounds of a collidable object whose collision rectangle has changed since it was added. The
+     * boxes above it are resized but the tree keeps its shape, so a collidable that moves far should rather be
+     * removed and added again.
+     *
+     * @param c The collidable object to update.
+     */
+    public void update(Collidable c) {
+        Entry e = entries.get(c);
+        if (e == null) {
+            return;
+        }
+        e.bound();
+        if (!dirty) {
+            refit(e.leaf);
+        }
+    }
+
+    /**
+     * Returns the number of collidable objects in the hierarchy.
+     *
+     * @return The number of indexed collidables.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the closest collision between the segment from (x0, y0) to (x1, y1) and any collidable object
+     * in the hierarchy. Allocates nothing unless the tree has to be built; the result is written into the given
+     * record.
+     *
+     * @param x0  The x-coordinate of the segment start.
+     * @param y0  The y-coordinate of the segment start.
+     * @param x1  The x-coordinate of the segment end.
+     * @param y1  The y-coordinate of the segment end.
+     * @param hit The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, HitRecord hit) {
+        return getClosestCollision(x0, y0, x1, y1, 0, hit);
+    }
+
+    /**
+     * Finds the closest collision between a circle moving with its center from (x0, y0) to (x1, y1) and any
+     * collidable object in the hierarchy. Every box is grown by the radius, so a rectangle the circle only
+     * grazes is still found.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, double radius, HitRecord hit) {
+        if (dirty) {
+            build();
+        }
+        return query(x0, y0, x1, y1, radius, hit);
+    }
+
+    /**
+     * Finds the closest collision like getClosestCollision, but safely from several threads at once, as long as
+     * no collidable is added, removed or updated meanwhile. Queries write nothing to the tree, so only building
+     * it after an addition has to be guarded.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollisionConcurrently(double x0, double y0, double x1, double y1, double radius,
+                                                   HitRecord hit) {
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    build();
+                }
+            }
+        }
+        return query(x0, y0, x1, y1, radius, hit);
+    }
+
+    /**
+     * Descends the tree from the root and tests the collidables of the leaves the moving circle may reach.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    private boolean query(double x0, double y0, double x1, double y1, double radius, HitRecord hit) {
+        hit.reset();
+        if (nodeCount == 0) {
+            return false;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double margin = radius + EPSILON;
+        double tolerance = EPSILON / Math.max(Math.sqrt(dx * dx + dy * dy), EPSILON);
+        double t = enter(0, x0, y0, dx, dy, margin);
+        if (t <= 1) {
+            visit(0, x0, y0, dx, dy, radius, margin, tolerance, hit);
+        }
+        return hit.hasHit();
+    }
+
+    /**
+     * Tests the collidables under a node the segment enters, visiting the child it enters first before the other.
+     *
+     * @param node      The node to visit.
+     * @param x0        The x-coordinate of the segment start.
+     * @param y0        The y-coordinate of the segment start.
+     * @param dx        The x extent of the segment.
+     * @param dy        The y extent of the segment.
+     * @param radius    The radius of the moving circle, 0 for a point.
+     * @param margin    How much every box is grown: the radius and the tolerance.
+     * @param tolerance The tolerance on the segment parameter t.
+     * @param hit       The record holding the closest collision found so far.
+     */
+    private void visit(int node, double x0, double y0, double dx, double dy, double radius, double margin,
+                       double tolerance, HitRecord hit) {
+        int l = left[node];
+        if (l < 0) {
+            for (int i = start[node]; i < start[node] + count[node]; i++) {
+                Collidable c = items[i].collidable;
+                c.getCollisionRectangle().closestSweptIntersection(x0, y0, x0 + dx, y0 + dy, radius, c, hit);
+            }
+            return;
+        }
+        double tl = enter(l, x0, y0, dx, dy, margin);
+        double tr = enter(l + 1, x0, y0, dx, dy, margin);
+        int near = tl <= tr ? l : l + 1;
+        double tNear = Math.min(tl, tr);
+        double tFar = Math.max(tl, tr);
+        // A collision inside a box lies no nearer than where the segment enters it
+        if (tNear <= 1 && tNear <= hit.getT() + tolerance) {
+            visit(near, x0, y0, dx, dy, radius, margin, tolerance, hit);
+        }
+        if (tFar <= 1 && tFar <= hit.getT() + tolerance) {
+            visit(near == l ? l + 1 : l, x0, y0, dx, dy, radius, margin, tolerance, hit);
+        }
+    }
+
+    /**
+     * Returns where the segment enters the box of a node grown by a margin.
+     *
+     * @param node   The node.
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param dx     The x extent of the segment.
+     * @param dy     The y extent of the segment.
+     * @param margin How much the box is grown on every side.
+     * @return The segment parameter t where it enters the box, 0 if it starts inside, or infinity if it misses.
+     */
+    private double enter(int node, double x0, double y0, double dx, double dy, double margin) {
+        if (minX[node] > maxX[node]) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double lowX = minX[node] - margin;
+        double highX = maxX[node] + margin;
+        double lowY = minY[node] - margin;
+        double highY = maxY[node] + margin;
+        double tEnter = 0;
+        double tLeave = 1;
+        if (Math.abs(dx) < EPSILON * EPSILON) {
+            if (x0 < lowX || x0 > highX) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (lowX - x0) / dx;
+            double t2 = (highX - x0) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tLeave = Math.min(tLeave, Math.max(t1, t2));
+        }
+        if (Math.abs(dy) < EPSILON * EPSILON) {
+            if (y0 < lowY || y0 > highY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (lowY - y0) / dy;
+            double t2 = (highY - y0) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tLeave = Math.min(tLeave, Math.max(t1, t2));
+        }
+        return tEnter > tLeave ? Double.POSITIVE_INFINITY : tEnter;
+    }
+
+    /**
+     * Builds the tree over all the indexed collidables from scratch.
+     */
+    private void build() {
+        int n = entries.size();
+        items = entries.values().toArray(new Entry[0]);
+        int capacity = Math.max(1, 2 * n - 1);
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        left = new int[capacity];
+        parent = new int[capacity];
+        start = new int[capacity];
+        count = new int[capacity];
+        nodeCount = 0;
+        if (n > 0) {
+            nodeCount = 1;
+            parent[0] = -1;
+            split(0, 0, n, 0);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Makes a node of the items in a range, splitting it in two where the surface area heuristic finds the
+     * cheapest pair of boxes, unless testing every item costs less than any split.
+     *
+     * @param node  The node to fill.
+     * @param from  The first item of the range.
+     * @param to    One past the last item of the range.
+     * @param depth The depth of the node.
+     */
+    private void split(int node, int from, int to, int depth) {
+        left[node] = -1;
+        start[node] = from;
+        count[node] = to - from;
+        fitLeaf(node);
+        int n = to - from;
+        if (n <= 1 || depth >= MAX_DEPTH) {
+            assign(node);
+            return;
+        }
+
+        // Bounds of the centers, which the bins divide
+        double cMinX = Double.POSITIVE_INFINITY;
+        double cMinY = Double.POSITIVE_INFINITY;
+        double cMaxX = Double.NEGATIVE_INFINITY;
+        double cMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double cx = centerX(items[i]);
+            double cy = centerY(items[i]);
+            cMinX = Math.min(cMinX, cx);
+            cMaxX = Math.max(cMaxX, cx);
+            cMinY = Math.min(cMinY, cy);
+            cMaxY = Math.max(cMaxY, cy);
+        }
+
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = 0;
+        for (int axis = 0; axis < 2; axis++) {
+            double low = axis == 0 ? cMinX : cMinY;
+            double extent = (axis == 0 ? cMaxX : cMaxY) - low;
+            if (extent <= 0) {
+                continue;
+            }
+            double[] bMinX = new double[BINS];
+            double[] bMinY = new double[BINS];
+            double[] bMaxX = new double[BINS];
+            double[] bMaxY = new double[BINS];
+            int[] bCount = new int[BINS];
+            Arrays.fill(bMinX, Double.POSITIVE_INFINITY);
+            Arrays.fill(bMinY, Double.POSITIVE_INFINITY);
+            Arrays.fill(bMaxX, Double.NEGATIVE_INFINITY);
+            Arrays.fill(bMaxY, Double.NEGATIVE_INFINITY);
+            for (int i = from; i < to; i++) {
+                Entry e = items[i];
+                int b = binOf(axis == 0 ? centerX(e) : centerY(e), low, extent);
+                bCount[b]++;
+                bMinX[b] = Math.min(bMinX[b], e.minX);
+                bMinY[b] = Math.min(bMinY[b], e.minY);
+                bMaxX[b] = Math.max(bMaxX[b], e.maxX);
+                bMaxY[b] = Math.max(bMaxY[b], e.maxY);
+            }
+            // Cost of the boxes right of every split, swept from the right
+            double[] rightCost = new double[BINS];
+            double rMinX = Double.POSITIVE_INFINITY;
+            double rMinY = Double.POSITIVE_INFINITY;
+            double rMaxX = Double.NEGATIVE_INFINITY;
+            double rMaxY = Double.NEGATIVE_INFINITY;
+            int rCount = 0;
+            for (int b = BINS - 1; b > 0; b--) {
+                rCount += bCount[b];
+                rMinX = Math.min(rMinX, bMinX[b]);
+                rMinY = Math.min(rMinY, bMinY[b]);
+                rMaxX = Math.max(rMaxX, bMaxX[b]);
+                rMaxY = Math.max(rMaxY, bMaxY[b]);
+                rightCost[b] = rCount == 0 ? 0 : rCount * halfPerimeter(rMinX, rMinY, rMaxX, rMaxY);
+            }
+            double lMinX = Double.POSITIVE_INFINITY;
+            double lMinY = Double.POSITIVE_INFINITY;
+            double lMaxX = Double.NEGATIVE_INFINITY;
+            double lMaxY = Double.NEGATIVE_INFINITY;
+            int lCount = 0;
+            for (int b = 0; b < BINS - 1; b++) {
+                lCount += bCount[b];
+                lMinX = Math.min(lMinX, bMinX[b]);
+                lMinY = Math.min(lMinY, bMinY[b]);
+                lMaxX = Math.max(lMaxX, bMaxX[b]);
+                lMaxY = Math.max(lMaxY, bMaxY[b]);
+                if (lCount == 0 || lCount == n) {
+                    continue;
+                }
+                double cost = lCount * halfPerimeter(lMinX, lMinY, lMaxX, lMaxY) + rightCost[b + 1];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        double area = halfPerimeter(minX[node], minY[node], maxX[node], maxY[node]);
+        int mid;
+        if (bestAxis < 0) {
+            // Every center is the same point, so no split separates them; halve the range if it is too big
+            if (n <= MAX_LEAF_SIZE) {
+                assign(node);
+                return;
+            }
+            mid = from + n / 2;
+        } else {
+            double splitCost = TRAVERSAL_COST + (area > 0 ? bestCost / area : n);
+            if (n <= MAX_LEAF_SIZE && splitCost >= n) {
+                assign(node);
+                return;
+            }
+            mid = partition(from, to, bestAxis, bestAxis == 0 ? cMinX : cMinY,
+                    (bestAxis == 0 ? cMaxX : cMaxY) - (bestAxis == 0 ? cMinX : cMinY), bestBin);
+        }
+
+        int l = nodeCount;
+        nodeCount += 2;
+        left[node] = l;
+        count[node] = 0;
+        parent[l] = node;
+        parent[l + 1] = node;
+        split(l, from, mid, depth + 1);
+        split(l + 1, mid, to, depth + 1);
+    }
+
+    /**
+     * Moves the items of a range whose centers fall in the bins up to a given one before the others.
+     *
+     * @param from   The first item of the range.
+     * @param to     One past the last item of the range.
+     * @param axis   0 to split on x, 1 on y.
+     * @param low    The lowest center on the axis.
+     * @param extent The extent of the centers on the axis.
+     * @param bin    The last bin of the first part.
+     * @return The index of the first item of the second part.
+     */
+    private int partition(int from, int to, int axis, double low, double extent, int bin) {
+        int i = from;
+        int j = to - 1;
+        while (i <= j) {
+            Entry e = items[i];
+            if (binOf(axis == 0 ? centerX(e) : centerY(e), low, extent) <= bin) {
+                i++;
+            } else {
+                items[i] = items[j];
+                items[j] = e;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Records in the items of a leaf which leaf and position they are at.
+     *
+     * @param leaf The leaf.
+     */
+    private void assign(int leaf) {
+        for (int i = start[leaf]; i < start[leaf] + count[leaf]; i++) {
+            items[i].leaf = leaf;
+            items[i].index = i;
+        }
+    }
+
+    /**
+     * Resizes a leaf to the bounds of its items, then every node above it to the bounds of its children,
+     * stopping early where a box does not change.
+     *
+     * @param leaf The leaf whose items changed.
+     */
+    private void refit(int leaf) {
+        fitLeaf(leaf);
+        for (int node = parent[leaf]; node >= 0; node = parent[node]) {
+            int l = left[node];
+            double x0 = Math.min(minX[l], minX[l + 1]);
+            double y0 = Math.min(minY[l], minY[l + 1]);
+            double x1 = Math.max(maxX[l], maxX[l + 1]);
+            double y1 = Math.max(maxY[l], maxY[l + 1]);
+            if (x0 == minX[node] && y0 == minY[node] && x1 == maxX[node] && y1 == maxY[node]) {
+                return;
+            }
+            minX[node] = x0;
+            minY[node] = y0;
+            maxX[node] = x1;
+            maxY[node] = y1;
+        }
+    }
+
+    /**
+     * Sets the box of a leaf to the bounds of its items, or makes it empty if it has none.
+     *
+     * @param leaf The leaf.
+     */
+    private void fitLeaf(int leaf) {
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (int i = start[leaf]; i < start[leaf] + count[leaf]; i++) {
+            Entry e = items[i];
+            x0 = Math.min(x0, e.minX);
+            y0 = Math.min(y0, e.minY);
+            x1 = Math.max(x1, e.maxX);
+            y1 = Math.max(y1, e.maxY);
+        }
+        minX[leaf] = x0;
+        minY[leaf] = y0;
+        maxX[leaf] = x1;
+        maxY[leaf] = y1;
+    }
+
+    /**
+     * Returns the bin a center falls in.
+     *
+     * @param v      The center on the axis.
+     * @param low    The lowest center on the axis.
+     * @param extent The extent of the centers on the axis.
+     * @return The bin index, between 0 and BINS - 1.
+     */
+    private static int binOf(double v, double low, double extent) {
+        return Math.min(BINS - 1, (int) ((v - low) / extent * BINS));
+    }
+
+    /**
+     * Returns half the perimeter of a box, the measure the surface area heuristic uses in two dimensions.
+     *
+     * @param x0 The lower x bound.
+     * @param y0 The lower y bound.
+     * @param x1 The upper x bound.
+     * @param y1 The upper y bound.
+     * @return The width plus the height.
+     */
+    private static double halfPerimeter(double x0, double y0, double x1, double y1) {
+        return (x1 - x0) + (y1 - y0);
+    }
+
+    /**
+     * Returns the x-coordinate of the center of an entry's bounds.
+     *
+     * @param e The entry.
+     * @return The center x.
+     */
+    private static double centerX(Entry e) {
+        return (e.minX + e.maxX) / 2;
+    }
+
+    /**
+     * Returns the y-coordinate of the center of an entry's bounds.
+     *
+     * @param e The entry.
+     * @return The center y.
+     */
+    private static double centerY(Entry e) {
+        return (e.minY + e.maxY) / 2;
+    }
+}
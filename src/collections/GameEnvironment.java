@@ -2,32 +2,290 @@
 package collections;
 import colilision.Collidable;
 import colilision.CollisionInfo;
+import colilision.HitRecord;
 import geometry.Line;
 import geometry.Point;
+import geometry.Rectangle;
 
 import java.util.ArrayList;
 
 /**
  * The GameEnvironment class manages collidable objects and provides collision detection functionality.
  * It keeps track of all collidable objects and can find the closest collision point to a given trajectory.
+ * <p>
+ * Static collidables, like blocks, are indexed in the structure of the broadphase in use: a uniform grid or a
+ * bounding volume hierarchy, or none for the linear scan. Dynamic collidables, like the paddle, move every tick;
+ * they are kept out of the indexes and tested directly by every query, so moving them updates no index. There
+ * should only be a few of them.
+ * </p>
+ * <p>
+ * The grid suits levels that blocks fill evenly, the hierarchy large levels whose blocks gather in a few
+ * places; chooseBroadphase picks between them by how much of a grid the blocks would occupy, once a level is
+ * loaded, and only then fills the index picked. Until a broadphase is chosen or set, static collidables are
+ * only listed. A level too large for a grid of UniformGrid.MAX_CELLS cells uses the hierarchy, even if the
+ * grid was asked for. With setCrossCheck, both are kept up to date, so the broadphase can be switched between
+ * queries to compare them.
+ * </p>
  */
 public class GameEnvironment {
+    private static final double DEFAULT_CELL_SIZE = 50; // Grid cell side, matches the default block width
+    // Levels whose collidables occupy less than this share of the grid cells use the hierarchy
+    private static final double SPARSE_OCCUPANCY = 0.1;
     private ArrayList<Collidable> collidables; // List of collidable objects in the environment
+    private ArrayList<Collidable> dynamics; // The collidables that are not indexed, tested by every query
+    private final double cellSize; // Side of the grid cells
+    private UniformGrid grid; // Index of the static collidables, while gridIndexed
+    private BoundingVolumeHierarchy bvh; // Index of the static collidables while bvhIndexed, built on its first query
+    private boolean settled; // Whether the broadphase was chosen or set, so static collidables are indexed
+    private boolean gridIndexed; // Whether the grid holds every static collidable
+    private boolean bvhIndexed; // Whether the hierarchy holds every static collidable
+    private double[] reserved; // Bounds given to reserve, applied whenever the grid is filled; null if none
+    private Broadphase broadphase; // The strategy used by getClosestCollision
+    private boolean crossCheck; // Whether both indexes are kept, whatever the broadphase
 
     /**
-     * Constructs a new GameEnvironment with an empty list of collidables.
+     * Strategies available for finding the collidables a trajectory may hit.
+     */
+    public enum Broadphase {
+        /**
+         * Tests the trajectory against every collidable in the environment.
+         */
+        LINEAR,
+        /**
+         * Tests the trajectory only against collidables in the grid cells it crosses.
+         */
+        GRID,
+        /**
+         * Tests the trajectory only against collidables in the boxes of the bounding volume hierarchy it enters.
+         */
+        BVH
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty list of collidables, using the grid broadphase.
      */
     public GameEnvironment() {
+        this(Broadphase.GRID, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty list of collidables. The static collidables are indexed
+     * for the broadphase once it is chosen or set, or on the first query.
+     *
+     * @param broadphase The strategy used to find candidate collidables.
+     * @param cellSize   The side length of a grid cell.
+     */
+    public GameEnvironment(Broadphase broadphase, double cellSize) {
         this.collidables = new ArrayList<>();
+        this.dynamics = new ArrayList<>();
+        this.cellSize = cellSize;
+        this.grid = new UniformGrid(cellSize);
+        this.bvh = new BoundingVolumeHierarchy();
+        this.broadphase = broadphase;
+    }
+
+    /**
+     * Returns the strategy used to find candidate collidables.
+     *
+     * @return The current broadphase, which may have fallen back from GRID to BVH for a large level.
+     */
+    public Broadphase getBroadphase() {
+        return this.broadphase;
+    }
+
+    /**
+     * Sets the strategy used to find candidate collidables. The static collidables are indexed again in the
+     * structure of the new broadphase, and the one no longer used is dropped, unless cross-checking is on.
+     *
+     * @param broadphase The new broadphase.
+     */
+    public void setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+        this.settled = true;
+        reindex();
+    }
+
+    /**
+     * Sets whether both the grid and the hierarchy are kept up to date whatever the broadphase, so it can be
+     * switched between queries to cross-check the grid or the hierarchy against the linear scan. Off by
+     * default, as it indexes every static collidable twice.
+     *
+     * @param enabled True to keep both indexes.
+     */
+    public void setCrossCheck(boolean enabled) {
+        this.crossCheck = enabled;
+        if (settled) {
+            reindex();
+        }
+    }
+
+    /**
+     * Picks the grid or the hierarchy for the static collidables added so far, by how densely they would fill a
+     * grid: a level that occupies few of its cells, or needs too many of them, gets the hierarchy, any other the
+     * grid. The density is worked out without building the grid. Meant to be called once a level's blocks are
+     * added; the blocks are then indexed in the structure picked only.
+     *
+     * @return The broadphase now in use.
+     */
+    public Broadphase chooseBroadphase() {
+        ArrayList<Collidable> statics = statics();
+        boolean sparse = !statics.isEmpty()
+                && UniformGrid.estimateOccupancy(statics, cellSize, SPARSE_OCCUPANCY) < SPARSE_OCCUPANCY;
+        setBroadphase(sparse ? Broadphase.BVH : Broadphase.GRID);
+        return this.broadphase;
     }
 
     /**
-     * Adds a collidable object to the game environment.
+     * Returns the static collidables, in the order they were added.
+     *
+     * @return A new list of the collidables that are not dynamic.
+     */
+    private ArrayList<Collidable> statics() {
+        ArrayList<Collidable> statics = new ArrayList<>(collidables.size());
+        for (int i = 0; i < collidables.size(); i++) {
+            Collidable c = collidables.get(i);
+            if (c != null && !dynamics.contains(c)) {
+                statics.add(c);
+            }
+        }
+        return statics;
+    }
+
+    /**
+     * Brings the indexes in line with the broadphase: the structure it uses, or both when cross-checking, gets
+     * every static collidable, and one no longer used is emptied. If the grid would need too many cells, the
+     * hierarchy is used instead.
+     */
+    private void reindex() {
+        boolean toGrid = crossCheck || broadphase == Broadphase.GRID;
+        if (toGrid && !gridIndexed && !gridCovers(statics())) {
+            toGrid = false;
+            if (broadphase == Broadphase.GRID) {
+                broadphase = Broadphase.BVH;
+            }
+        }
+        boolean toBvh = crossCheck || broadphase == Broadphase.BVH;
+        if (gridIndexed && !toGrid) {
+            grid = new UniformGrid(cellSize);
+        }
+        if (bvhIndexed && !toBvh) {
+            bvh = new BoundingVolumeHierarchy();
+        }
+        indexStatics(toGrid && !gridIndexed, toBvh && !bvhIndexed);
+        gridIndexed = toGrid;
+        bvhIndexed = toBvh;
+    }
+
+    /**
+     * Adds every static collidable, in the order they were added, to the grid or the hierarchy or both.
+     *
+     * @param toGrid True to add them to the grid.
+     * @param toBvh  True to add them to the hierarchy.
+     */
+    private void indexStatics(boolean toGrid, boolean toBvh) {
+        if (!toGrid && !toBvh) {
+            return;
+        }
+        if (toGrid && reserved != null && grid.canCover(reserved[0], reserved[1], reserved[2], reserved[3])) {
+            grid.reserve(reserved[0], reserved[1], reserved[2], reserved[3]);
+        }
+        ArrayList<Collidable> statics = statics();
+        for (int i = 0; i < statics.size(); i++) {
+            Collidable c = statics.get(i);
+            if (toGrid) {
+                grid.add(c);
+            }
+            if (toBvh) {
+                bvh.add(c);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the grid can cover the given collidables without exceeding its cell limit.
+     *
+     * @param cs The collidables.
+     * @return True if every one of them fits in the grid.
+     */
+    private boolean gridCovers(ArrayList<Collidable> cs) {
+        if (cs.isEmpty()) {
+            return true;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < cs.size(); i++) {
+            Rectangle rect = cs.get(i).getCollisionRectangle();
+            minX = Math.min(minX, Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()));
+            minY = Math.min(minY, Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()));
+            maxX = Math.max(maxX, Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()));
+            maxY = Math.max(maxY, Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()));
+        }
+        return grid.canCover(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Drops the grid when a static collidable falls outside the area it can cover, and moves to the hierarchy.
+     */
+    private void fallBackToHierarchy() {
+        grid = new UniformGrid(cellSize);
+        gridIndexed = false;
+        if (broadphase == Broadphase.GRID) {
+            broadphase = Broadphase.BVH;
+        }
+        if (!bvhIndexed) {
+            indexStatics(false, true);
+            bvhIndexed = true;
+        }
+    }
+
+    /**
+     * Adds a collidable object to the game environment. Before a broadphase is chosen or set, it is only listed.
      *
      * @param c The collidable object to add.
      */
     public void addCollidable(Collidable c) {
         collidables.add(c);
+        if (gridIndexed && c != null && !grid.canCover(c)) {
+            fallBackToHierarchy();
+        }
+        if (gridIndexed) {
+            grid.add(c);
+        }
+        if (bvhIndexed) {
+            bvh.add(c);
+        }
+    }
+
+    /**
+     * Prepares the environment for static collidables inside the given bounds, e.g. the blocks of a level file,
+     * so the grid, if it is picked, is sized once instead of growing as they are indexed. Bounds too large for
+     * the grid are ignored.
+     *
+     * @param minX  The lower x bound of the collidables.
+     * @param minY  The lower y bound of the collidables.
+     * @param maxX  The upper x bound of the collidables.
+     * @param maxY  The upper y bound of the collidables.
+     * @param count The number of collidables that will be added.
+     */
+    public void reserve(double minX, double minY, double maxX, double maxY, int count) {
+        reserved = new double[] {minX, minY, maxX, maxY};
+        if (gridIndexed && grid.canCover(minX, minY, maxX, maxY)) {
+            grid.reserve(minX, minY, maxX, maxY);
+        }
+        collidables.ensureCapacity(collidables.size() + count);
+    }
+
+    /**
+     * Adds a dynamic collidable object to the game environment, one whose collision rectangle moves often.
+     * It can move at any time between queries without being updated.
+     *
+     * @param c The collidable object to add.
+     */
+    public void addDynamicCollidable(Collidable c) {
+        collidables.add(c);
+        dynamics.add(c);
     }
 
     /**
@@ -37,6 +295,24 @@ public class GameEnvironment {
      */
     public void removeCollidable(Collidable c) {
         collidables.remove(c);
+        if (!dynamics.remove(c)) {
+            grid.remove(c);
+            bvh.remove(c);
+        }
+    }
+
+    /**
+     * Updates the position of a static collidable object whose collision rectangle has changed, e.g. a block
+     * that was moved. Dynamic collidables need no update.
+     *
+     * @param c The collidable object that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        if (gridIndexed && !grid.canCover(c)) {
+            fallBackToHierarchy();
+        }
+        grid.update(c);
+        bvh.update(c);
     }
 
     /**
@@ -47,36 +323,129 @@ public class GameEnvironment {
      * collision point and the collidable object involved.
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        // Lists to store intersection points and corresponding collidable objects
-        ArrayList<Point> intersectionPoints = new ArrayList<>();
-        ArrayList<Collidable> intersectionObj = new ArrayList<>();
+        HitRecord hit = new HitRecord();
+        if (!getClosestCollision(trajectory.start().getX(), trajectory.start().getY(),
+                trajectory.end().getX(), trajectory.end().getY(), hit)) {
+            return new CollisionInfo(null, null);
+        }
+        Point p = new Point(hit.collisionPoint().getX(), hit.collisionPoint().getY());
+        return new CollisionInfo(p, hit.collisionObject());
+    }
 
-        // Find intersection points with all collidable objects
-        for (Collidable c : collidables) {
-            if (c != null) {
-                Point intersection = trajectory.closestIntersectionToStartOfLine(c.getCollisionRectangle());
-                intersectionPoints.add(intersection);
-                intersectionObj.add(c);
-            }
+    /**
+     * Finds the closest collision between the segment from (x0, y0) to (x1, y1) and any collidable object
+     * in the environment. This is the allocation-free form of getClosestCollision(Line), meant for
+     * callers that query every frame and keep their own record.
+     *
+     * @param x0  The x-coordinate of the segment start.
+     * @param y0  The y-coordinate of the segment start.
+     * @param x1  The x-coordinate of the segment end.
+     * @param y1  The y-coordinate of the segment end.
+     * @param hit The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, HitRecord hit) {
+        return getClosestCollision(x0, y0, x1, y1, 0, hit);
+    }
+
+    /**
+     * Finds the closest collision between a circle moving with its center from (x0, y0) to (x1, y1) and
+     * any collidable object in the environment (continuous collision detection for a round object). If no
+     * broadphase was chosen or set yet, the static collidables are first indexed for the current one.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, double radius, HitRecord hit) {
+        if (!settled) {
+            setBroadphase(broadphase);
+        }
+        if (broadphase == Broadphase.GRID) {
+            grid.getClosestCollision(x0, y0, x1, y1, radius, hit);
+            return testDynamics(x0, y0, x1, y1, radius, hit);
         }
+        if (broadphase == Broadphase.BVH) {
+            bvh.getClosestCollision(x0, y0, x1, y1, radius, hit);
+            return testDynamics(x0, y0, x1, y1, radius, hit);
+        }
+        return getClosestCollisionLinear(x0, y0, x1, y1, radius, hit);
+    }
 
-        // Determine the closest collision point and collidable object
-        Point closestP = null;
-        Collidable closestO = null;
-        double distance = Double.MAX_VALUE;
+    /**
+     * Finds the closest collision like getClosestCollision, but safely from several threads at once, as long as
+     * no collidable is added, removed or moved while the queries run. Each thread must use its own record.
+     * Until a broadphase is chosen or set, every collidable is tested, so the queries change nothing.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollisionConcurrently(double x0, double y0, double x1, double y1, double radius,
+                                                   HitRecord hit) {
+        if (!settled) {
+            return getClosestCollisionLinear(x0, y0, x1, y1, radius, hit);
+        }
+        if (broadphase == Broadphase.GRID) {
+            grid.getClosestCollisionConcurrently(x0, y0, x1, y1, radius, hit);
+            return testDynamics(x0, y0, x1, y1, radius, hit);
+        }
+        if (broadphase == Broadphase.BVH) {
+            bvh.getClosestCollisionConcurrently(x0, y0, x1, y1, radius, hit);
+            return testDynamics(x0, y0, x1, y1, radius, hit);
+        }
+        return getClosestCollisionLinear(x0, y0, x1, y1, radius, hit);
+    }
 
-        for (Point p : intersectionPoints) {
-            if (p == null) {
-                continue;
-            }
-            if (p.distance(trajectory.start()) < distance) {
-                distance = p.distance(trajectory.start());
-                closestP = p;
-                closestO = intersectionObj.get(intersectionPoints.indexOf(p));
-            }
+    /**
+     * Tests the segment against every dynamic collidable, keeping the closer of those collisions and the one
+     * already in the record.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record holding the closest collision found so far.
+     * @return True if the record holds a collision, false otherwise.
+     */
+    private boolean testDynamics(double x0, double y0, double x1, double y1, double radius, HitRecord hit) {
+        for (int i = 0; i < dynamics.size(); i++) {
+            Collidable c = dynamics.get(i);
+            c.getCollisionRectangle().closestSweptIntersection(x0, y0, x1, y1, radius, c, hit);
         }
+        return hit.hasHit();
+    }
 
-        return new CollisionInfo(closestP, closestO);
+    /**
+     * Finds the closest collision by testing the segment against every collidable object.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    private boolean getClosestCollisionLinear(double x0, double y0, double x1, double y1, double radius,
+                                              HitRecord hit) {
+        hit.reset();
+        for (int i = 0; i < collidables.size(); i++) {
+            Collidable c = collidables.get(i);
+            if (c != null) {
+                c.getCollisionRectangle().closestSweptIntersection(x0, y0, x1, y1, radius, c, hit);
+            }
+        }
+        return hit.hasHit();
     }
 
     /**
@@ -1,10 +1,12 @@
 
 package collections;
-import biuoop.DrawSurface;
+import entities.BatchedSprite;
+import entities.InterpolatedSprite;
 import entities.Sprite;
+import render.Canvas;
+import ui.BlockLayer;
 
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The collections.SpriteCollection class manages a collection of sprites.
@@ -12,6 +14,7 @@ import java.util.List;
  */
 public class SpriteCollection {
     private ArrayList<Sprite> list;
+    private ArrayList<Sprite> snapshot; // Reused copy of the list iterated by notifyAllTimePassed
 
     /**
      * Constructs a new collections.SpriteCollection.
@@ -19,6 +22,7 @@ public class SpriteCollection {
      */
     public SpriteCollection() {
         this.list = new ArrayList<>();
+        this.snapshot = new ArrayList<>();
     }
 
     /**
@@ -38,27 +42,96 @@ public class SpriteCollection {
         this.list.remove(s);
     }
 
+    /**
+     * Returns the sprites in the collection, in the order they are notified and drawn.
+     *
+     * @return the list of sprites
+     */
+    public ArrayList<Sprite> getSprites() {
+        return list;
+    }
+
     /**
      * Calls the timePassed() method on all sprites in the collection.
      * This method is typically called once per game loop iteration to update sprite states.
      */
     public void notifyAllTimePassed() {
-        // Make a copy of the hitListeners before iterating over them.
-        List<Sprite> copy = new ArrayList<>(list);
-        for (Sprite s : copy) {
-            s.timePassed();
+        // Iterate over a copy, since sprites may be removed while being notified.
+        // The copy is refilled element by element so no new array is allocated once it has grown.
+        snapshot.clear();
+        for (int i = 0; i < list.size(); i++) {
+            snapshot.add(list.get(i));
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            snapshot.get(i).timePassed();
         }
+        snapshot.clear();
     }
 
     /**
      * Calls the drawOn(d) method on all sprites in the collection.
-     * This method is typically called once per game loop iteration to draw sprites on a DrawSurface.
+     * This method is typically called once per game loop iteration to draw sprites on a Canvas.
+     *
+     * @param d the Canvas to draw on
+     */
+    public void drawAllOn(Canvas d) {
+        draw(d, false, 0, null);
+    }
+
+    /**
+     * Calls the drawOn method on all sprites in the collection, drawing moving sprites between their
+     * positions at the previous and the current tick.
      *
-     * @param d the DrawSurface to draw on
+     * @param d     the Canvas to draw on
+     * @param alpha how far between the previous and the current tick to draw, as a fraction of a tick
      */
-    public void drawAllOn(DrawSurface d) {
+    public void drawAllOn(Canvas d, double alpha) {
+        draw(d, true, alpha, null);
+    }
+
+    /**
+     * Calls the drawOn method on the sprites in the collection that are not drawn by the given block layer,
+     * drawing moving sprites between their positions at the previous and the current tick.
+     *
+     * @param d      the Canvas to draw on
+     * @param alpha  how far between the previous and the current tick to draw, as a fraction of a tick
+     * @param cached the layer already drawn underneath, whose blocks are skipped
+     */
+    public void drawAllOn(Canvas d, double alpha, BlockLayer cached) {
+        draw(d, true, alpha, cached);
+    }
+
+    /**
+     * Draws the sprites in order. Each run of consecutive batched sprites is drawn as one batch of the canvas,
+     * which may then reorder their primitives by color.
+     *
+     * @param d           the Canvas to draw on
+     * @param interpolate whether moving sprites are drawn interpolated
+     * @param alpha       how far between the previous and the current tick to draw moving sprites
+     * @param cached      the layer whose blocks are skipped, or null to draw every sprite
+     */
+    private void draw(Canvas d, boolean interpolate, double alpha, BlockLayer cached) {
+        boolean batch = false;
         for (Sprite s : list) {
-            s.drawOn(d);
+            if (cached != null && cached.contains(s)) {
+                continue;
+            }
+            if (s instanceof BatchedSprite != batch) {
+                batch = !batch;
+                if (batch) {
+                    d.beginBatch();
+                } else {
+                    d.endBatch();
+                }
+            }
+            if (interpolate && s instanceof InterpolatedSprite) {
+                ((InterpolatedSprite) s).drawOn(d, alpha);
+            } else {
+                s.drawOn(d);
+            }
+        }
+        if (batch) {
+            d.endBatch();
         }
     }
 }
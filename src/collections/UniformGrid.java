@@ -0,0 +1,556 @@
+
+package collections;
+import colilision.Collidable;
+import colilision.HitRecord;
+import geometry.Rectangle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The UniformGrid class is a broadphase index for collidable objects.
+ * Every collidable is registered in all the square cells its collision rectangle overlaps, and a trajectory
+ * query walks only the cells the segment crosses (DDA traversal), stopping as soon as no later cell can hold
+ * a closer collision.
+ * <p>
+ * The cells cover the bounding box of the collidables, so a grid takes memory for the area of a level rather
+ * than for its blocks; it never grows past MAX_CELLS cells, and canCover tells beforehand whether it would.
+ * </p>
+ */
+public class UniformGrid {
+    // Tolerance for comparing floating-point numbers, matches the one used by the geometry classes
+    private static final double EPSILON = 0.0001;
+    /** The most cells a grid may have, some 16 to 32 MB of cell references. */
+    public static final long MAX_CELLS = 1L << 22;
+    private final double cellSize; // Side length of a single cell
+    private double originX; // x-coordinate of the left edge of cell column 0
+    private double originY; // y-coordinate of the lower edge of cell row 0
+    private int cols; // Number of cell columns
+    private int rows; // Number of cell rows
+    private ArrayList<Entry>[] cells; // Cell contents, indexed by row * cols + col
+    private Map<Collidable, Entry> entries; // The cell range every indexed collidable occupies
+    private int queryStamp; // Incremented per query so a collidable spanning several cells is tested once
+
+    /**
+     * A collidable registered in the grid, together with the range of cells it was inserted into.
+     */
+    private static final class Entry {
+        private final Collidable collidable;
+        private int minCol;
+        private int maxCol;
+        private int minRow;
+        private int maxRow;
+        private int stamp;
+
+        /**
+         * Constructs a new Entry for the given collidable.
+         *
+         * @param c The collidable this entry stands for.
+         */
+        Entry(Collidable c) {
+            this.collidable = c;
+        }
+    }
+
+    /**
+     * Constructs a new, empty UniformGrid. The grid bounds grow as collidables are added.
+     *
+     * @param cellSize The side length of a single cell.
+     * @throws IllegalArgumentException If the cell size is not positive.
+     */
+    public UniformGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.entries = new HashMap<>();
+        this.cols = 0;
+        this.rows = 0;
+    }
+
+    /**
+     * Adds a collidable object to the grid, using its current collision rectangle.
+     *
+     * @param c The collidable object to add.
+     */
+    public void add(Collidable c) {
+        if (c == null || entries.containsKey(c)) {
+            return;
+        }
+        Entry e = new Entry(c);
+        insert(e);
+        entries.put(c, e);
+    }
+
+    /**
+     * Grows the grid to cover a box up front, e.g. the bounds of a level about to be loaded, so adding the
+     * collidables inside it never grows the grid and places every one of them again.
+     *
+     * @param minX The lower x bound that must be covered.
+     * @param minY The lower y bound that must be covered.
+     * @param maxX The upper x bound that must be covered.
+     * @param maxY The upper y bound that must be covered.
+     */
+    public void reserve(double minX, double minY, double maxX, double maxY) {
+        minX -= EPSILON;
+        minY -= EPSILON;
+        maxX += EPSILON;
+        maxY += EPSILON;
+        if (cols == 0 || minX < originX || minY < originY
+                || maxX >= originX + cols * cellSize || maxY >= originY + rows * cellSize) {
+            grow(minX, minY, maxX, maxY, null);
+        }
+    }
+
+    /**
+     * Returns whether the grid can grow to cover a box, that is, whether it would still have at most MAX_CELLS
+     * cells. A box it already covers always fits.
+     *
+     * @param minX The lower x bound that must be covered.
+     * @param minY The lower y bound that must be covered.
+     * @param maxX The upper x bound that must be covered.
+     * @param maxY The upper y bound that must be covered.
+     * @return True if the box fits.
+     */
+    public boolean canCover(double minX, double minY, double maxX, double maxY) {
+        minX -= EPSILON;
+        minY -= EPSILON;
+        maxX += EPSILON;
+        maxY += EPSILON;
+        if (cols > 0) {
+            if (minX >= originX && minY >= originY
+                    && maxX < originX + cols * cellSize && maxY < originY + rows * cellSize) {
+                return true;
+            }
+            minX = Math.min(minX, originX);
+            minY = Math.min(minY, originY);
+            maxX = Math.max(maxX, originX + cols * cellSize);
+            maxY = Math.max(maxY, originY + rows * cellSize);
+        }
+        return cellCount(minX, minY, maxX, maxY, cellSize) <= MAX_CELLS;
+    }
+
+    /**
+     * Returns whether the grid can grow to cover a collidable's current collision rectangle.
+     *
+     * @param c The collidable object.
+     * @return True if it fits; see canCover(double, double, double, double).
+     */
+    public boolean canCover(Collidable c) {
+        Rectangle rect = c.getCollisionRectangle();
+        return canCover(Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()),
+                Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()),
+                Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()),
+                Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()));
+    }
+
+    /**
+     * Returns the number of cells of a grid laid over a box, with the spare cell grow leaves on every side.
+     *
+     * @param minX     The lower x bound of the box.
+     * @param minY     The lower y bound of the box.
+     * @param maxX     The upper x bound of the box.
+     * @param maxY     The upper y bound of the box.
+     * @param cellSize The side length of a cell.
+     * @return The number of cells, which may not fit in an int.
+     */
+    private static double cellCount(double minX, double minY, double maxX, double maxY, double cellSize) {
+        double x0 = Math.floor(minX / cellSize) * cellSize - cellSize;
+        double y0 = Math.floor(minY / cellSize) * cellSize - cellSize;
+        return (Math.floor((maxX - x0) / cellSize) + 2) * (Math.floor((maxY - y0) / cellSize) + 2);
+    }
+
+    /**
+     * Works out the share of the cells of a grid over the given collidables that they would occupy, without
+     * building the grid: the occupied cells are counted in a set, so the work and memory follow the blocks
+     * rather than the area of the level. Counting stops once the share reaches the limit.
+     *
+     * @param collidables The collidable objects.
+     * @param cellSize    The side length of a cell.
+     * @param limit       The share at which counting stops.
+     * @return The share of occupied cells, or the limit if it is at least that; 0 if there are no collidables
+     * or a grid over them would have more than MAX_CELLS cells, since such a grid cannot be built.
+     */
+    public static double estimateOccupancy(List<Collidable> collidables, double cellSize, double limit) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < collidables.size(); i++) {
+            Rectangle rect = collidables.get(i).getCollisionRectangle();
+            minX = Math.min(minX, Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()) - EPSILON);
+            minY = Math.min(minY, Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()) - EPSILON);
+            maxX = Math.max(maxX, Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()) + EPSILON);
+            maxY = Math.max(maxY, Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()) + EPSILON);
+        }
+        if (collidables.isEmpty() || cellCount(minX, minY, maxX, maxY, cellSize) > MAX_CELLS) {
+            return 0;
+        }
+        double x0 = Math.floor(minX / cellSize) * cellSize - cellSize;
+        double y0 = Math.floor(minY / cellSize) * cellSize - cellSize;
+        long cols = (long) Math.floor((maxX - x0) / cellSize) + 2;
+        double total = cellCount(minX, minY, maxX, maxY, cellSize);
+        long enough = (long) Math.ceil(limit * total);
+        Set<Long> occupied = new HashSet<>();
+        for (int i = 0; i < collidables.size(); i++) {
+            Rectangle rect = collidables.get(i).getCollisionRectangle();
+            long c0 = (long) Math.floor(
+                    (Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()) - EPSILON - x0) / cellSize);
+            long c1 = (long) Math.floor(
+                    (Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()) + EPSILON - x0) / cellSize);
+            long r0 = (long) Math.floor(
+                    (Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()) - EPSILON - y0) / cellSize);
+            long r1 = (long) Math.floor(
+                    (Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()) + EPSILON - y0) / cellSize);
+            for (long row = r0; row <= r1; row++) {
+                for (long col = c0; col <= c1; col++) {
+                    occupied.add(row * cols + col);
+                    if (occupied.size() >= enough) {
+                        return limit;
+                    }
+                }
+            }
+        }
+        return occupied.size() / total;
+    }
+
+    /**
+     * Removes a collidable object from the grid.
+     *
+     * @param c The collidable object to remove.
+     */
+    public void remove(Collidable c) {
+        Entry e = entries.remove(c);
+        if (e != null) {
+            unlink(e);
+        }
+    }
+
+    /**
+     * Re-indexes a collidable object whose collision rectangle has changed since it was added.
+     *
+     * @param c The collidable object to update.
+     */
+    public void update(Collidable c) {
+        Entry e = entries.get(c);
+        if (e == null) {
+            return;
+        }
+        unlink(e);
+        insert(e);
+    }
+
+    /**
+     * Returns the number of collidable objects in the grid.
+     *
+     * @return The number of indexed collidables.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the share of the grid's cells that hold at least one collidable. A low share means the grid spans
+     * mostly empty space, as in a large level whose blocks gather in a few places.
+     *
+     * @return The fraction of occupied cells, between 0 and 1, or 0 for an empty grid.
+     */
+    public double getOccupancy() {
+        if (cols == 0 || rows == 0) {
+            return 0;
+        }
+        int occupied = 0;
+        for (ArrayList<Entry> cell : cells) {
+            if (cell != null && !cell.isEmpty()) {
+                occupied++;
+            }
+        }
+        return (double) occupied / cells.length;
+    }
+
+    /**
+     * Finds the closest collision between the segment from (x0, y0) to (x1, y1) and any collidable object
+     * in the grid. Allocates nothing; the result is written into the given record.
+     *
+     * @param x0  The x-coordinate of the segment start.
+     * @param y0  The y-coordinate of the segment start.
+     * @param x1  The x-coordinate of the segment end.
+     * @param y1  The y-coordinate of the segment end.
+     * @param hit The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, HitRecord hit) {
+        return getClosestCollision(x0, y0, x1, y1, 0, hit);
+    }
+
+    /**
+     * Finds the closest collision between a circle moving with its center from (x0, y0) to (x1, y1) and any
+     * collidable object in the grid. Besides the cells the center crosses, every cell within the radius of
+     * them is searched, so a rectangle the circle only grazes is still found.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollision(double x0, double y0, double x1, double y1, double radius, HitRecord hit) {
+        return query(x0, y0, x1, y1, radius, hit, false);
+    }
+
+    /**
+     * Finds the closest collision like getClosestCollision, but without marking the collidables it tests, so
+     * several threads may query at once as long as none of them adds, removes or updates collidables meanwhile.
+     * A collidable spanning several cells may be tested more than once, which does not change the result.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @return True if a collision was found, false otherwise.
+     */
+    public boolean getClosestCollisionConcurrently(double x0, double y0, double x1, double y1, double radius,
+                                                   HitRecord hit) {
+        return query(x0, y0, x1, y1, radius, hit, true);
+    }
+
+    /**
+     * Walks the cells a moving circle crosses and tests the collidables in them.
+     *
+     * @param x0     The x-coordinate of the segment start.
+     * @param y0     The y-coordinate of the segment start.
+     * @param x1     The x-coordinate of the segment end.
+     * @param y1     The y-coordinate of the segment end.
+     * @param radius The radius of the moving circle, 0 for a point.
+     * @param hit    The record that receives the closest collision. It is reset first.
+     * @param shared Whether other threads may query at the same time, in which case entries are not stamped.
+     * @return True if a collision was found, false otherwise.
+     */
+    private boolean query(double x0, double y0, double x1, double y1, double radius, HitRecord hit,
+                          boolean shared) {
+        hit.reset();
+        if (cols == 0 || rows == 0) {
+            return false;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+
+        // Clip the segment (parameter t in [0, 1]) against the grid bounds, one slab per axis
+        double tEnter = 0;
+        double tLeave = 1;
+        if (Math.abs(dx) < EPSILON * EPSILON) {
+            if (x0 < originX - radius || x0 > originX + cols * cellSize + radius) {
+                return false;
+            }
+        } else {
+            double t1 = (originX - radius - x0) / dx;
+            double t2 = (originX + cols * cellSize + radius - x0) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tLeave = Math.min(tLeave, Math.max(t1, t2));
+        }
+        if (Math.abs(dy) < EPSILON * EPSILON) {
+            if (y0 < originY - radius || y0 > originY + rows * cellSize + radius) {
+                return false;
+            }
+        } else {
+            double t1 = (originY - radius - y0) / dy;
+            double t2 = (originY + rows * cellSize + radius - y0) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tLeave = Math.min(tLeave, Math.max(t1, t2));
+        }
+        if (tEnter > tLeave) {
+            return false;
+        }
+
+        int col = clampCol(cellOf(x0 + dx * tEnter, originX));
+        int row = clampRow(cellOf(y0 + dy * tEnter, originY));
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+        double tDeltaX = stepX != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double tMaxX = stepX > 0 ? (originX + (col + 1) * cellSize - x0) / dx
+                : stepX < 0 ? (originX + col * cellSize - x0) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = stepY > 0 ? (originY + (row + 1) * cellSize - y0) / dy
+                : stepY < 0 ? (originY + row * cellSize - y0) / dy : Double.POSITIVE_INFINITY;
+
+        double tolerance = EPSILON / Math.sqrt(dx * dx + dy * dy);
+        int ring = radius > 0 ? (int) Math.ceil((radius + EPSILON) / cellSize) : 0;
+        int stamp = 0; // 0 disables the check for collidables already tested by this query
+        if (!shared) {
+            queryStamp = queryStamp == Integer.MAX_VALUE ? 1 : queryStamp + 1;
+            stamp = queryStamp;
+        }
+
+        while (true) {
+            for (int r = Math.max(0, row - ring); r <= Math.min(rows - 1, row + ring); r++) {
+                for (int c = Math.max(0, col - ring); c <= Math.min(cols - 1, col + ring); c++) {
+                    ArrayList<Entry> cell = cells[r * cols + c];
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        Entry e = cell.get(i);
+                        if (stamp != 0) {
+                            if (e.stamp == stamp) {
+                                continue;
+                            }
+                            e.stamp = stamp;
+                        }
+                        e.collidable.getCollisionRectangle()
+                                .closestSweptIntersection(x0, y0, x1, y1, radius, e.collidable, hit);
+                    }
+                }
+            }
+
+            // Any collision with the center in a later cell lies at least as far as the point where the
+            // segment leaves this one
+            double tCellExit = Math.min(tMaxX, tMaxY);
+            if (hit.hasHit() && hit.getT() <= tCellExit + tolerance) {
+                break;
+            }
+            if (tCellExit > tLeave) {
+                break;
+            }
+            if (tMaxX < tMaxY) {
+                col += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (col < 0 || col >= cols || row < 0 || row >= rows) {
+                break;
+            }
+        }
+        return hit.hasHit();
+    }
+
+    /**
+     * Inserts an entry into every cell its collidable's rectangle overlaps, growing the grid if needed.
+     *
+     * @param e The entry to insert.
+     */
+    private void insert(Entry e) {
+        Rectangle rect = e.collidable.getCollisionRectangle();
+        double minX = Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()) - EPSILON;
+        double maxX = Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()) + EPSILON;
+        double minY = Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()) - EPSILON;
+        double maxY = Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()) + EPSILON;
+        if (cols == 0 || minX < originX || minY < originY
+                || maxX >= originX + cols * cellSize || maxY >= originY + rows * cellSize) {
+            grow(minX, minY, maxX, maxY, e);
+        }
+        place(e);
+    }
+
+    /**
+     * Removes an entry from all the cells it was inserted into.
+     *
+     * @param e The entry to remove.
+     */
+    private void unlink(Entry e) {
+        for (int row = e.minRow; row <= e.maxRow; row++) {
+            for (int col = e.minCol; col <= e.maxCol; col++) {
+                ArrayList<Entry> cell = cells[row * cols + col];
+                if (cell != null) {
+                    cell.remove(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enlarges the grid bounds so they contain the given box, and re-inserts all existing entries.
+     *
+     * @param minX The lower x bound that must be covered.
+     * @param minY The lower y bound that must be covered.
+     * @param maxX The upper x bound that must be covered.
+     * @param maxY The upper y bound that must be covered.
+     * @param skip The entry being inserted, which is placed by the caller instead.
+     * @throws IllegalStateException If the grid would have more than MAX_CELLS cells.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void grow(double minX, double minY, double maxX, double maxY, Entry skip) {
+        if (cols > 0) {
+            minX = Math.min(minX, originX);
+            minY = Math.min(minY, originY);
+            maxX = Math.max(maxX, originX + cols * cellSize);
+            maxY = Math.max(maxY, originY + rows * cellSize);
+        }
+        if (cellCount(minX, minY, maxX, maxY, cellSize) > MAX_CELLS) {
+            throw new IllegalStateException("A grid over the collidables would have too many cells.");
+        }
+        // Leave one spare cell on every side so small additions don't trigger another rebuild
+        this.originX = Math.floor(minX / cellSize) * cellSize - cellSize;
+        this.originY = Math.floor(minY / cellSize) * cellSize - cellSize;
+        this.cols = (int) Math.floor((maxX - originX) / cellSize) + 2;
+        this.rows = (int) Math.floor((maxY - originY) / cellSize) + 2;
+        this.cells = (ArrayList<Entry>[]) new ArrayList[cols * rows];
+        for (Entry other : entries.values()) {
+            if (other != skip) {
+                place(other);
+            }
+        }
+    }
+
+    /**
+     * Adds an entry to every cell its collidable's rectangle overlaps, assuming the grid already covers it.
+     *
+     * @param e The entry to add.
+     */
+    private void place(Entry e) {
+        Rectangle rect = e.collidable.getCollisionRectangle();
+        e.minCol = cellOf(Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()) - EPSILON, originX);
+        e.maxCol = cellOf(Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()) + EPSILON, originX);
+        e.minRow = cellOf(Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()) - EPSILON, originY);
+        e.maxRow = cellOf(Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()) + EPSILON, originY);
+        for (int row = e.minRow; row <= e.maxRow; row++) {
+            for (int col = e.minCol; col <= e.maxCol; col++) {
+                int index = row * cols + col;
+                if (cells[index] == null) {
+                    cells[index] = new ArrayList<>();
+                }
+                cells[index].add(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the cell containing a coordinate on one axis.
+     *
+     * @param v      The coordinate.
+     * @param origin The grid origin on the same axis.
+     * @return The cell index (may be out of range).
+     */
+    private int cellOf(double v, double origin) {
+        return (int) Math.floor((v - origin) / cellSize);
+    }
+
+    /**
+     * Clamps a column index into the grid.
+     *
+     * @param col The column index.
+     * @return The clamped column index.
+     */
+    private int clampCol(int col) {
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    /**
+     * Clamps a row index into the grid.
+     *
+     * @param row The row index.
+     * @return The clamped row index.
+     */
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+}
@@ -1,17 +1,15 @@
 
 package entities;
-import biuoop.DrawSurface;
-import colilision.CollisionInfo;
+import colilision.HitRecord;
 import collections.GameEnvironment;
 import game.Game;
-import geometry.Line;
 import geometry.Point;
 import listeners.HitListener;
+import listeners.HitListenerList;
 import listeners.HitNotifier;
+import render.Canvas;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -19,14 +17,36 @@ import java.util.Random;
  * The ball can move within a specified rectangular area and handle collisions with the boundaries and
  * other rectangular obstacles.
  */
-public class Ball implements Sprite, HitNotifier {
+public class Ball implements InterpolatedSprite, HitNotifier {
     private static final double EPSILON = 0.0001; // Small constant for floating point comparison
+    private static final int MAX_BOUNCES = 4; // Most collisions resolved within a single swept step
     private Point center; // Center point of the ball
+    private double previousX; // x-coordinate of the center before the last step, for interpolated drawing
+    private double previousY; // y-coordinate of the center before the last step, for interpolated drawing
     private int r; // Radius of the ball
     private java.awt.Color color; // Color of the ball
     private Velocity v; // entities.Velocity of the ball
     private GameEnvironment env;
-    private List<HitListener> hitListeners;
+    private final HitListenerList hitListeners = new HitListenerList();
+    private int hitEventId = -1;   // Id of the ball on the hit event bus of its game, -1 before it is added
+    private boolean inGame;        // Whether the ball is in a game
+    private final HitRecord hit = new HitRecord(); // Reused by every collision query of this ball
+    private CollisionMode collisionMode = CollisionMode.POINT;
+
+    /**
+     * Enum defining how a ball detects collisions while moving.
+     */
+    public enum CollisionMode {
+        /**
+         * Only the path of the center is tested. After a hit the ball is nudged by 0.9 of its new velocity.
+         */
+        POINT,
+        /**
+         * The whole circle is swept along its path (continuous collision detection), and every bounce
+         * within the step is resolved before the step ends, so fast balls neither tunnel nor overlap blocks.
+         */
+        SWEPT_CIRCLE
+    }
 
     /**
      * Constructor to create a ball with a center point, radius, and color.
@@ -38,10 +58,11 @@ public class Ball implements Sprite, HitNotifier {
      */
     public Ball(Point center, int r, GameEnvironment g, java.awt.Color color) {
         this.center = new Point(center.getX(), center.getY());
+        this.previousX = center.getX();
+        this.previousY = center.getY();
         this.r = r;
         this.color = color;
         this.env = g;
-        this.hitListeners = new ArrayList<>();
     }
 
     /**
@@ -55,10 +76,11 @@ public class Ball implements Sprite, HitNotifier {
      */
     public Ball(double x, double y, int r, GameEnvironment g, java.awt.Color color) {
         this.center = new Point(x, y);
+        this.previousX = x;
+        this.previousY = y;
         this.r = r;
         this.color = color;
         this.env = g;
-        this.hitListeners = new ArrayList<>();
     }
 
     /**
@@ -70,8 +92,9 @@ public class Ball implements Sprite, HitNotifier {
      */
     public Ball(double x, double y, int r) {
         this.center = new Point(x, y);
+        this.previousX = x;
+        this.previousY = y;
         this.r = r;
-        this.hitListeners = new ArrayList<>();
     }
 
     /**
@@ -129,6 +152,35 @@ public class Ball implements Sprite, HitNotifier {
         return (int) Math.round(this.center.getY());
     }
 
+    /**
+     * Gets the exact x-coordinate of the ball's center, without rounding.
+     *
+     * @return The x-coordinate of the ball's center
+     */
+    public double getCenterX() {
+        return this.center.getX();
+    }
+
+    /**
+     * Gets the exact y-coordinate of the ball's center, without rounding.
+     *
+     * @return The y-coordinate of the ball's center
+     */
+    public double getCenterY() {
+        return this.center.getY();
+    }
+
+    /**
+     * Moves the ball's center to the given coordinates, without any collision handling.
+     *
+     * @param x The new x-coordinate of the center
+     * @param y The new y-coordinate of the center
+     */
+    void moveTo(double x, double y) {
+        this.center.setX(x);
+        this.center.setY(y);
+    }
+
     /**
      * Gets the size (radius) of the ball.
      *
@@ -188,6 +240,24 @@ public class Ball implements Sprite, HitNotifier {
         this.v = new Velocity(dx, dy);
     }
 
+    /**
+     * Gets the way this ball detects collisions.
+     *
+     * @return The collision mode of the ball
+     */
+    public CollisionMode getCollisionMode() {
+        return this.collisionMode;
+    }
+
+    /**
+     * Sets the way this ball detects collisions.
+     *
+     * @param mode The new collision mode of the ball
+     */
+    public void setCollisionMode(CollisionMode mode) {
+        this.collisionMode = mode;
+    }
+
     /**
      * Sets the color of the ball.
      *
@@ -201,29 +271,81 @@ public class Ball implements Sprite, HitNotifier {
      * Moves the ball one step, handling collisions with boundaries and rectangles.
      */
     public void moveOneStep() {
-        // Apply collision handling before moving
-        Point next = this.v.applyToPoint(this.center);
-        Line path = new Line(this.center, next);
-        CollisionInfo info = env.getClosestCollision(path);
-        if (info == null || info.collisionPoint() == null || info.collisionObject() == null) {
-            this.center = next;
+        this.previousX = this.center.getX();
+        this.previousY = this.center.getY();
+        if (this.collisionMode == CollisionMode.SWEPT_CIRCLE) {
+            moveSwept();
+            return;
+        }
+        // Apply collision handling before moving. The center is updated in place and the collision
+        // query writes into this ball's own record, so a step without a hit allocates nothing.
+        double x = this.center.getX();
+        double y = this.center.getY();
+        double nextX = x + this.v.getDx();
+        double nextY = y + this.v.getDy();
+        if (!env.getClosestCollision(x, y, nextX, nextY, this.hit)) {
+            this.center.setX(nextX);
+            this.center.setY(nextY);
         } else {
-            this.v = info.collisionObject().hit(this, info.collisionPoint(), this.v);
-            this.center = new Point(this.center.getX() + 0.9 * this.v.getDx(),
-                    this.center.getY() + 0.9 * this.v.getDy());
+            this.v = this.hit.collisionObject().hit(this, this.hit, this.v);
+            this.center.setX(x + 0.9 * this.v.getDx());
+            this.center.setY(y + 0.9 * this.v.getDy());
+        }
+    }
+
+    /**
+     * Moves the ball one step with the whole circle swept along its path.
+     * On a hit the ball advances to the point of contact, bounces, and spends the rest of the step
+     * travelling with its new velocity, up to MAX_BOUNCES times.
+     */
+    private void moveSwept() {
+        double remaining = 1; // Fraction of the step still to travel
+        for (int i = 0; i < MAX_BOUNCES && remaining > EPSILON; i++) {
+            double x = this.center.getX();
+            double y = this.center.getY();
+            double nextX = x + remaining * this.v.getDx();
+            double nextY = y + remaining * this.v.getDy();
+            if (!env.getClosestCollision(x, y, nextX, nextY, this.r, this.hit)) {
+                this.center.setX(nextX);
+                this.center.setY(nextY);
+                return;
+            }
+            double t = Math.max(0, Math.min(1, this.hit.getT()));
+            this.center.setX(x + t * (nextX - x));
+            this.center.setY(y + t * (nextY - y));
+            Velocity newV = this.hit.collisionObject().hit(this, this.hit, this.v);
+            if (newV == null) {
+                return;
+            }
+            this.v = newV;
+            remaining *= 1 - t;
         }
     }
 
     /**
-     * Draws the ball on the given DrawSurface.
+     * Draws the ball on the given Canvas.
      *
      * @param surface The surface to draw the ball on
      */
-    public void drawOn(DrawSurface surface) {
+    public void drawOn(Canvas surface) {
         surface.setColor(color);
         surface.fillCircle((int) Math.round(center.getX()), (int) Math.round(center.getY()), r);
     }
 
+    /**
+     * Draws the ball on the given Canvas, between its position before and after the last step.
+     *
+     * @param surface The surface to draw the ball on
+     * @param alpha   The fraction of the last step to draw the ball at
+     */
+    @Override
+    public void drawOn(Canvas surface, double alpha) {
+        double x = this.previousX + (this.center.getX() - this.previousX) * alpha;
+        double y = this.previousY + (this.center.getY() - this.previousY) * alpha;
+        surface.setColor(color);
+        surface.fillCircle((int) Math.round(x), (int) Math.round(y), r);
+    }
+
     @Override
     public void timePassed() {
         moveOneStep();
@@ -233,21 +355,68 @@ public class Ball implements Sprite, HitNotifier {
      * Adds this sprite to the specified game.
      * This method adds the current sprite object to the given game by invoking
      * {@link Game#addSprite(Sprite)} method with {@code this} as the argument.
+     * The first time, the ball is also registered on the game's hit event bus.
      *
      * @param g The game to which this sprite will be added.
      */
     public void addToGame(Game g) {
         g.addSprite(this);
+        if (hitEventId < 0) {
+            hitEventId = g.getHitEvents().register(this);
+        }
+        inGame = true;
+    }
+
+    /**
+     * Adds this ball to the given game in the place of another ball, taking over the other ball's id on the
+     * game's hit event bus instead of registering a new one. Used when a game is restored from a snapshot.
+     *
+     * @param g        The game to which this sprite will be added.
+     * @param replaced The ball this ball takes the place of.
+     */
+    public void addToGame(Game g, Ball replaced) {
+        if (hitEventId < 0 && replaced.hitEventId >= 0) {
+            hitEventId = replaced.hitEventId;
+            g.getHitEvents().replace(hitEventId, this);
+        }
+        addToGame(g);
+    }
+
+    /**
+     * Returns whether this ball is in a game, i.e. it was added and not removed since.
+     *
+     * @return true if the ball is in a game
+     */
+    public boolean isInGame() {
+        return this.inGame;
+    }
+
+    /**
+     * Returns the id of this ball on the hit event bus of its game.
+     *
+     * @return the id, or -1 if the ball was never added to a game
+     */
+    public int getHitEventId() {
+        return this.hitEventId;
+    }
+
+    /**
+     * Returns the slot of this ball in a ball system, for hit events.
+     *
+     * @return the slot, or -1 for a ball of its own
+     */
+    public int getHitEventSlot() {
+        return -1;
     }
 
     @Override
     public void removeHitListener(HitListener hl) {
-        this.hitListeners.remove(hl);
+        this.hitListeners.removeHitListener(hl);
     }
 
     @Override
     public void addHitListener(HitListener hl) {
-        this.hitListeners.add(hl);
+        this.hitListeners.addHitListener(hl);
     }
 
     /**
@@ -257,6 +426,7 @@ public class Ball implements Sprite, HitNotifier {
      */
     public void removeFromGame(Game game) {
         game.removeSprite(this);
+        inGame = false;
     }
 
     /**
@@ -267,11 +437,7 @@ public class Ball implements Sprite, HitNotifier {
      *@param beingHit The block that being hit.
      */
     public void notifyHit(Block beingHit, Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<HitListener>(this.hitListeners);
-        // Notify all listeners about a hit event:
-        for (HitListener hl : listeners) {
-            hl.hitEvent(beingHit, hitter);
-        }
+        // The listener array is copied when it changes, so it can be walked as it is
+        this.hitListeners.notifyHit(beingHit, hitter);
     }
 }
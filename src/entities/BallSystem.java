@@ -0,0 +1,520 @@
+
+package entities;
+import colilision.HitRecord;
+import collections.GameEnvironment;
+import game.Game;
+import listeners.HitListener;
+import listeners.HitNotifier;
+import render.Canvas;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The entities.BallSystem class stores many balls in parallel primitive arrays instead of one Ball object each,
+ * for games with a large number of balls. Every tick it first finds the balls whose path hits something, then
+ * moves all balls in one tight loop over the arrays, and finally hands only the balls that hit something to
+ * the ordinary Ball collision handling.
+ * <p>
+ * Collidables and hit listeners expect a Ball, so the collision handling runs on a single reused Ball that is
+ * loaded with the state of one slot at a time and written back afterwards. The listeners of the system are the
+ * listeners of that ball, shared by every slot.
+ * </p>
+ */
+public class BallSystem implements InterpolatedSprite, HitNotifier {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int CHUNKS_PER_THREAD = 4;    // Enough chunks to balance slices of uneven cost
+    private static final int MIN_PARALLEL_BALLS = 256; // Fewer balls are moved faster on a single thread
+    private final GameEnvironment env;
+    private final Carrier carrier; // Runs the collision handling of one slot at a time
+    private final HitRecord hit = new HitRecord(); // Reused by every collision query of the system
+    private Ball.CollisionMode collisionMode = Ball.CollisionMode.POINT;
+    private int size;  // Number of balls in play, stored in slots 0 to size - 1
+    private double[] x;
+    private double[] y;
+    private double[] previousX; // x-coordinates before the last step, for interpolated drawing
+    private double[] previousY; // y-coordinates before the last step, for interpolated drawing
+    private double[] dx;
+    private double[] dy;
+    private int[] r;
+    private Color[] colors;
+    private boolean[] removed; // Slots removed during the current tick, compacted at its end
+    private boolean anyRemoved; // Whether a slot was removed since the last compaction
+    private boolean[] hitting; // Slots whose path hits something in the current tick
+    private ForkJoinPool pool; // Runs the collision queries and movement in parallel, null to run serially
+    private Chunk[] chunks;    // The slices of the slots handed to the pool, reused every tick
+    private final Step step = new Step(); // Runs all chunks, reused every tick
+    private int hitEventId = -1; // Id of the system on the hit event bus of its game, -1 before it is added
+
+    /**
+     * Constructs an empty ball system.
+     *
+     * @param env The game environment the balls collide with.
+     */
+    public BallSystem(GameEnvironment env) {
+        this(env, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ball system with room for the given number of balls before it has to grow.
+     *
+     * @param env      The game environment the balls collide with.
+     * @param capacity The initial capacity.
+     */
+    public BallSystem(GameEnvironment env, int capacity) {
+        this.env = env;
+        this.carrier = new Carrier(env);
+        int c = Math.max(1, capacity);
+        this.x = new double[c];
+        this.y = new double[c];
+        this.previousX = new double[c];
+        this.previousY = new double[c];
+        this.dx = new double[c];
+        this.dy = new double[c];
+        this.r = new int[c];
+        this.colors = new Color[c];
+        this.removed = new boolean[c];
+        this.hitting = new boolean[c];
+    }
+
+    /**
+     * Adds a ball to the system.
+     *
+     * @param cx     The x-coordinate of the ball's center.
+     * @param cy     The y-coordinate of the ball's center.
+     * @param radius The radius of the ball.
+     * @param v      The velocity of the ball.
+     * @param color  The color of the ball.
+     * @return The slot of the new ball, valid until a ball is removed.
+     */
+    public int addBall(double cx, double cy, int radius, Velocity v, Color color) {
+        if (size == x.length) {
+            grow();
+        }
+        int i = size++;
+        x[i] = cx;
+        y[i] = cy;
+        previousX[i] = cx;
+        previousY[i] = cy;
+        dx[i] = v.getDx();
+        dy[i] = v.getDy();
+        r[i] = radius;
+        colors[i] = color;
+        removed[i] = false;
+        return i;
+    }
+
+    /**
+     * Removes every ball from the system, keeping its capacity, listeners and settings.
+     */
+    public void clear() {
+        Arrays.fill(colors, 0, size, null);
+        Arrays.fill(removed, 0, size, false);
+        size = 0;
+        anyRemoved = false;
+    }
+
+    /**
+     * Doubles the capacity of every array.
+     */
+    private void grow() {
+        int c = x.length * 2;
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        previousX = Arrays.copyOf(previousX, c);
+        previousY = Arrays.copyOf(previousY, c);
+        dx = Arrays.copyOf(dx, c);
+        dy = Arrays.copyOf(dy, c);
+        r = Arrays.copyOf(r, c);
+        colors = Arrays.copyOf(colors, c);
+        removed = Arrays.copyOf(removed, c);
+        hitting = Arrays.copyOf(hitting, c);
+    }
+
+    /**
+     * Returns the number of balls in play.
+     *
+     * @return The number of balls.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the x-coordinate of a ball's center.
+     *
+     * @param i The slot of the ball.
+     * @return The x-coordinate.
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the y-coordinate of a ball's center.
+     *
+     * @param i The slot of the ball.
+     * @return The y-coordinate.
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the radius of a ball.
+     *
+     * @param i The slot of the ball.
+     * @return The radius.
+     */
+    public int getRadius(int i) {
+        return r[i];
+    }
+
+    /**
+     * Gets the velocity of a ball.
+     *
+     * @param i The slot of the ball.
+     * @return A new velocity holding the ball's current one.
+     */
+    public Velocity getVelocity(int i) {
+        return new Velocity(dx[i], dy[i]);
+    }
+
+    /**
+     * Gets the color of a ball.
+     *
+     * @param i The slot of the ball.
+     * @return The color.
+     */
+    public Color getColor(int i) {
+        return colors[i];
+    }
+
+    /**
+     * Sets the color of a ball.
+     *
+     * @param i The slot of the ball.
+     * @param c The new color.
+     */
+    public void setColor(int i, Color c) {
+        colors[i] = c;
+    }
+
+    /**
+     * Removes a ball. Its slot stays valid, marked as removed, until compactRemoved() is called, so the slots of
+     * the other balls do not change while the hit events of a tick are dispatched.
+     *
+     * @param i The slot of the ball.
+     */
+    public void removeBall(int i) {
+        removed[i] = true;
+        anyRemoved = true;
+    }
+
+    /**
+     * Returns whether a ball was removed since the last compaction.
+     *
+     * @param i The slot of the ball.
+     * @return True if the ball was removed.
+     */
+    public boolean isRemoved(int i) {
+        return removed[i];
+    }
+
+    /**
+     * Drops the balls removed since the last compaction, keeping the order of the remaining balls.
+     */
+    public void compactRemoved() {
+        if (anyRemoved) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the way the balls of this system detect collisions.
+     *
+     * @return The collision mode of every ball.
+     */
+    public Ball.CollisionMode getCollisionMode() {
+        return this.collisionMode;
+    }
+
+    /**
+     * Sets the way the balls of this system detect collisions.
+     *
+     * @param mode The new collision mode of every ball.
+     */
+    public void setCollisionMode(Ball.CollisionMode mode) {
+        this.collisionMode = mode;
+    }
+
+    /**
+     * Sets the pool the collision queries and movement of the balls are spread over. Only the collision
+     * handling of the balls that hit something, and with it every hit listener, still runs on the calling
+     * thread, in slot order, so a parallel tick ends in exactly the same state as a serial one.
+     *
+     * @param pool The pool to run on, or null to run every tick on the calling thread.
+     */
+    public void setParallelism(ForkJoinPool pool) {
+        this.pool = pool;
+        if (pool == null) {
+            this.chunks = null;
+            return;
+        }
+        this.chunks = new Chunk[pool.getParallelism() * CHUNKS_PER_THREAD];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk();
+        }
+    }
+
+    /**
+     * Returns the pool the collision queries and movement of the balls are spread over.
+     *
+     * @return The pool, or null if every tick runs on the calling thread.
+     */
+    public ForkJoinPool getParallelism() {
+        return this.pool;
+    }
+
+    /**
+     * Moves every ball one step.
+     * The collision queries run first, marking the slots whose path hits something. All balls are then
+     * moved by their velocity in a single loop over the arrays, which has no branches or calls and can be
+     * vectorized by the JIT compiler. Both passes only read the game environment, and with a pool set they run
+     * on slices of the slots in parallel. Finally the balls that hit something are put back and stepped by the
+     * ordinary Ball collision handling, one after the other in slot order. Balls removed during the step keep
+     * their slots until the hits of the tick have been dispatched.
+     */
+    @Override
+    public void timePassed() {
+        int n = this.size;
+        if (pool == null || n < MIN_PARALLEL_BALLS) {
+            advance(0, n, this.hit, false);
+        } else {
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i].reinitialize();
+                chunks[i].from = (int) ((long) n * i / chunks.length);
+                chunks[i].to = (int) ((long) n * (i + 1) / chunks.length);
+            }
+            step.reinitialize();
+            pool.invoke(step);
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (!hitting[i]) {
+                continue;
+            }
+            hitting[i] = false;
+            x[i] = previousX[i];
+            y[i] = previousY[i];
+            carrier.step(i);
+        }
+        if (hitEventId < 0) {
+            compactRemoved(); // In a game the hit event bus compacts, once the hits of the tick are dispatched
+        }
+    }
+
+    /**
+     * Runs the collision queries and moves the balls of a range of slots, marking the slots whose path hits
+     * something.
+     *
+     * @param from   The first slot of the range.
+     * @param to     The slot after the last one of the range.
+     * @param record The collision record to query with, owned by the calling thread.
+     * @param shared Whether other threads query the environment at the same time.
+     */
+    private void advance(int from, int to, HitRecord record, boolean shared) {
+        boolean swept = this.collisionMode == Ball.CollisionMode.SWEPT_CIRCLE;
+        for (int i = from; i < to; i++) {
+            double nextX = x[i] + dx[i];
+            double nextY = y[i] + dy[i];
+            double radius = swept ? r[i] : 0;
+            hitting[i] = shared
+                    ? env.getClosestCollisionConcurrently(x[i], y[i], nextX, nextY, radius, record)
+                    : env.getClosestCollision(x[i], y[i], nextX, nextY, radius, record);
+        }
+
+        for (int i = from; i < to; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            x[i] += dx[i];
+            y[i] += dy[i];
+        }
+    }
+
+    /**
+     * Removes the slots marked as removed, keeping the order of the remaining balls.
+     */
+    private void compact() {
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed[i]) {
+                removed[i] = false;
+                continue;
+            }
+            if (i != j) {
+                x[j] = x[i];
+                y[j] = y[i];
+                previousX[j] = previousX[i];
+                previousY[j] = previousY[i];
+                dx[j] = dx[i];
+                dy[j] = dy[i];
+                r[j] = r[i];
+                colors[j] = colors[i];
+            }
+            j++;
+        }
+        Arrays.fill(colors, j, size, null);
+        size = j;
+        anyRemoved = false;
+    }
+
+    /**
+     * Draws every ball on the given Canvas.
+     *
+     * @param d The surface to draw the balls on
+     */
+    @Override
+    public void drawOn(Canvas d) {
+        for (int i = 0; i < size; i++) {
+            d.setColor(colors[i]);
+            d.fillCircle((int) Math.round(x[i]), (int) Math.round(y[i]), r[i]);
+        }
+    }
+
+    /**
+     * Draws every ball on the given Canvas, between its position before and after the last step.
+     *
+     * @param d     The surface to draw the balls on
+     * @param alpha The fraction of the last step to draw the balls at
+     */
+    @Override
+    public void drawOn(Canvas d, double alpha) {
+        for (int i = 0; i < size; i++) {
+            double bx = previousX[i] + (x[i] - previousX[i]) * alpha;
+            double by = previousY[i] + (y[i] - previousY[i]) * alpha;
+            d.setColor(colors[i]);
+            d.fillCircle((int) Math.round(bx), (int) Math.round(by), r[i]);
+        }
+    }
+
+    /**
+     * Adds this ball system to the specified game as a single sprite.
+     * The first time, the system is also registered on the game's hit event bus, and hits by its balls are
+     * published with their slots.
+     *
+     * @param g The game to which this ball system will be added.
+     */
+    public void addToGame(Game g) {
+        g.addSprite(this);
+        if (hitEventId < 0) {
+            hitEventId = g.getHitEvents().register(this);
+        }
+    }
+
+    @Override
+    public void addHitListener(HitListener hl) {
+        carrier.addHitListener(hl);
+    }
+
+    @Override
+    public void removeHitListener(HitListener hl) {
+        carrier.detach(hl);
+    }
+
+    /**
+     * The Step class runs every chunk of a parallel tick and waits for all of them.
+     */
+    private final class Step extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(chunks);
+        }
+    }
+
+    /**
+     * The Chunk class runs the collision queries and movement of one slice of the slots, with its own record.
+     */
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final HitRecord record = new HitRecord();
+        private int from; // The first slot of the slice
+        private int to;   // The slot after the last one of the slice
+
+        @Override
+        protected void compute() {
+            advance(from, to, record, true);
+        }
+    }
+
+    /**
+     * The Carrier class is the Ball that the collision handling of the system runs on. It is loaded with the
+     * state of one slot, stepped, and written back. Removing it from the game marks its slot as removed instead,
+     * and listeners cannot remove themselves from it, since they are shared by every slot.
+     */
+    private final class Carrier extends Ball {
+        private int slot; // The slot currently loaded
+
+        /**
+         * Constructs the carrier ball of the system.
+         *
+         * @param env The game environment the balls collide with.
+         */
+        Carrier(GameEnvironment env) {
+            super(0, 0, 0, env, null);
+        }
+
+        /**
+         * Steps a single slot with the ordinary Ball collision handling.
+         *
+         * @param i The slot to step.
+         */
+        void step(int i) {
+            this.slot = i;
+            moveTo(x[i], y[i]);
+            setSize(r[i]);
+            setColor(colors[i]);
+            setVelocity(dx[i], dy[i]);
+            setCollisionMode(collisionMode);
+            moveOneStep();
+            x[i] = getCenterX();
+            y[i] = getCenterY();
+            dx[i] = getVelocity().getDx();
+            dy[i] = getVelocity().getDy();
+            colors[i] = getColor();
+        }
+
+        /**
+         * Removes a listener from the listeners of every slot.
+         *
+         * @param hl The listener to remove.
+         */
+        void detach(HitListener hl) {
+            super.removeHitListener(hl);
+        }
+
+        @Override
+        public void removeHitListener(HitListener hl) {
+            // Listeners are shared by every slot; a listener removing itself from one ball stays on the others.
+        }
+
+        @Override
+        public void removeFromGame(Game g) {
+            removeBall(slot);
+        }
+
+        @Override
+        public int getHitEventId() {
+            return hitEventId;
+        }
+
+        @Override
+        public int getHitEventSlot() {
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package entities;
+
+/**
+ * The entities.BatchedSprite interface marks a sprite that is drawn as a box, a filled rectangle and its
+ * outline, like the blocks of a level, which mostly sit side by side. A run of such sprites is drawn as one
+ * batch, so their primitives may be reordered by color and kind; sprites that overlap another one, like the
+ * corners of the frame, keep their order, so not a single pixel changes.
+ */
+public interface BatchedSprite extends Sprite {
+}
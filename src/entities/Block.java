@@ -1,24 +1,33 @@
 
 package entities;
-import biuoop.DrawSurface;
 import colilision.Collidable;
+import colilision.HitRecord;
 import game.Game;
 import geometry.Point;
 import geometry.Rectangle;
+import listeners.HitEventBus;
 import listeners.HitListener;
+import listeners.HitListenerList;
 import listeners.HitNotifier;
+import render.Canvas;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * A entities.Block class that implements both Collidable and entities.Sprite interfaces.
- * Blocks are rectangular objects that can collide with other objects and be drawn on a DrawSurface.
+ * Blocks are rectangular objects that can collide with other objects and be drawn on a Canvas.
  */
-public class Block implements Collidable, Sprite, HitNotifier {
+public class Block implements Collidable, BatchedSprite, HitNotifier {
+    /** Score for breaking a block, unless set otherwise. */
+    public static final int DEFAULT_POINTS = 5;
     private Rectangle block;
-    private List<HitListener> hitListeners;
+    private boolean breakable = true;   // Whether a ball of another color breaks the block
+    private int points = DEFAULT_POINTS; // Score for breaking the block
+    private boolean deathRegion;        // Whether a ball that hits the block is lost
+    private final HitListenerList hitListeners = new HitListenerList();
+    private HitEventBus hitEvents;  // Bus of the game the block was first added to, null before
+    private int hitEventId = -1;    // Id of the block in hitEvents
+    private boolean inGame;         // Whether the block is in a game
 
     /**
      * Constructs a entities.Block with a specified upper-left corner point, width, and height.
@@ -42,7 +51,6 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public Block(Point upperLeft, double width, double height, Color c) {
         this.block = new Rectangle(upperLeft, width, height);
         this.block.setColor(c);
-        this.hitListeners = new ArrayList<HitListener>();
     }
 
     /**
@@ -68,8 +76,61 @@ public class Block implements Collidable, Sprite, HitNotifier {
         if (collisionPoint == null || currentVelocity == null) {
             return null;
         }
+        boolean verticalSide = block.getRightSide().isPointOnLine(collisionPoint)
+                || block.getLeftSide().isPointOnLine(collisionPoint);
+        boolean horizontalSide = block.getUpperSide().isPointOnLine(collisionPoint)
+                || block.getDownSide().isPointOnLine(collisionPoint);
+        return bounce(hitter, currentVelocity, verticalSide, horizontalSide);
+    }
+
+    /**
+     * Handles a collision with the block, using the side reported by the collision query, or the contact
+     * normal when a swept circle struck a corner.
+     *
+     * @param hitter          The ball that hit the block.
+     * @param hit             The collision, as found by a collision query.
+     * @param currentVelocity The current velocity of the object colliding with the block.
+     * @return The new velocity of the object after the collision.
+     */
+    @Override
+    public Velocity hit(Ball hitter, HitRecord hit, Velocity currentVelocity) {
+        if (hit == null || !hit.hasHit() || currentVelocity == null) {
+            return null;
+        }
+        boolean verticalSide = hit.side().isVertical() || hit.isCorner();
+        boolean horizontalSide = !hit.side().isVertical() || hit.isCorner();
+        Velocity newV = bounce(hitter, currentVelocity, verticalSide, horizontalSide);
+        if (hit.hasCornerNormal()) {
+            // A circle striking a corner with its round edge is reflected along the contact normal, so it
+            // glances off at the angle it came in instead of off the nearer side
+            double nx = hit.getNormalX();
+            double ny = hit.getNormalY();
+            double dot = currentVelocity.getDx() * nx + currentVelocity.getDy() * ny;
+            if (dot < 0) {
+                newV = new Velocity(currentVelocity.getDx() - 2 * dot * nx,
+                        currentVelocity.getDy() - 2 * dot * ny);
+            }
+        }
+        return newV;
+    }
+
+    /**
+     * Reflects the velocity of a ball off the struck sides, notifies the listeners and publishes the hit on
+     * the game's hit event bus.
+     *
+     * @param hitter          The ball that hit the block.
+     * @param currentVelocity The current velocity of the ball.
+     * @param verticalSide    Whether the left or right side was struck.
+     * @param horizontalSide  Whether the upper or bottom side was struck.
+     * @return The new velocity of the ball after the collision.
+     */
+    private Velocity bounce(Ball hitter, Velocity currentVelocity, boolean verticalSide, boolean horizontalSide) {
+        if (hitEvents != null && (verticalSide || horizontalSide)) {
+            hitEvents.publish(this, hitter, (verticalSide ? HitEventBus.VERTICAL : 0)
+                    | (horizontalSide ? HitEventBus.HORIZONTAL : 0));
+        }
         Velocity newV = new Velocity(currentVelocity.getDx(), currentVelocity.getDy());
-        if (block.getRightSide().isPointOnLine(collisionPoint) || block.getLeftSide().isPointOnLine(collisionPoint)) {
+        if (verticalSide) {
             hitter.notifyHit(this, hitter);
             newV = new Velocity(-currentVelocity.getDx(), currentVelocity.getDy());
 
@@ -78,7 +139,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
             }
 
         }
-        if (block.getUpperSide().isPointOnLine(collisionPoint) || block.getDownSide().isPointOnLine(collisionPoint)) {
+        if (horizontalSide) {
             hitter.notifyHit(this, hitter);
             newV = new Velocity(currentVelocity.getDx(), -currentVelocity.getDy());
             if (!ballColorMatch(hitter)) {
@@ -98,24 +159,102 @@ public class Block implements Collidable, Sprite, HitNotifier {
     }
 
     /**
-     * Draws the block on a given DrawSurface.
+     * Draws the block on a given Canvas.
      *
-     * @param d The DrawSurface on which to draw the block.
+     * @param d The Canvas on which to draw the block.
      */
     @Override
-    public void drawOn(DrawSurface d) {
+    public void drawOn(Canvas d) {
         // Fill the block with its color
         block.drawOn(d);
     }
 
     /**
      * Adds this block to the given game by registering it as both a sprite and a collidable object.
+     * The first time, the block is also registered on the game's hit event bus.
      *
      * @param g The game to which this block will be added.
      */
     public void addToGame(Game g) {
         g.addSprite(this);
         g.addCollidable(this);
+        if (hitEvents == null) {
+            hitEvents = g.getHitEvents();
+            hitEventId = hitEvents.register(this);
+        }
+        inGame = true;
+    }
+
+    /**
+     * Returns whether this block is in a game, i.e. it was added and not removed since.
+     *
+     * @return true if the block is in a game
+     */
+    public boolean isInGame() {
+        return this.inGame;
+    }
+
+    /**
+     * Returns whether a ball of another color breaks this block.
+     *
+     * @return true if the block is breakable, false for e.g. a frame block
+     */
+    public boolean isBreakable() {
+        return this.breakable;
+    }
+
+    /**
+     * Sets whether a ball of another color breaks this block.
+     *
+     * @param breakable false to make the block indestructible
+     */
+    public void setBreakable(boolean breakable) {
+        this.breakable = breakable;
+    }
+
+    /**
+     * Returns the score for breaking this block.
+     *
+     * @return the points
+     */
+    public int getPoints() {
+        return this.points;
+    }
+
+    /**
+     * Sets the score for breaking this block.
+     *
+     * @param points the points
+     */
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    /**
+     * Returns whether a ball that hits this block is lost.
+     *
+     * @return true if the block is a death region
+     */
+    public boolean isDeathRegion() {
+        return this.deathRegion;
+    }
+
+    /**
+     * Sets whether a ball that hits this block is lost. A death region is usually not breakable either.
+     *
+     * @param deathRegion true to make the block a death region
+     */
+    public void setDeathRegion(boolean deathRegion) {
+        this.deathRegion = deathRegion;
+    }
+
+    /**
+     * Returns the id of this block on the hit event bus of its game.
+     *
+     * @return the id, or -1 if the block was never added to a game
+     */
+    public int getHitEventId() {
+        return this.hitEventId;
     }
 
     /**
@@ -125,10 +264,20 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @return true if the ball's color matches the block's color, false otherwise
      */
     public Boolean ballColorMatch(Ball ball) {
+        return colorMatch(ball.getColor());
+    }
+
+    /**
+     * Returns if a color matches the block's color.
+     *
+     * @param c the color, e.g. of a ball that hit the block
+     * @return true if the color matches the block's color, false otherwise
+     */
+    public boolean colorMatch(Color c) {
         if (this.block.getColor() == null) {
             return false;
         }
-        return this.block.getColor().equals(ball.getColor());
+        return this.block.getColor().equals(c);
     }
 
     /**
@@ -139,6 +288,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
     public void removeFromGame(Game game) {
         game.removeCollidable(this);
         game.removeSprite(this);
+        inGame = false;
     }
 
     @Override
@@ -147,7 +297,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param hitter The ball that hit the block.
      */
     public void addHitListener(HitListener hl) {
-        this.hitListeners.add(hl);
+        this.hitListeners.addHitListener(hl);
     }
 
     @Override
@@ -156,7 +306,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param hitter The ball that hit the block.
      */
     public void removeHitListener(HitListener hl) {
-        this.hitListeners.remove(hl);
+        this.hitListeners.removeHitListener(hl);
     }
 
     /**
@@ -165,12 +315,8 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param hitter The ball that hit the block.
      */
     private void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<HitListener>(this.hitListeners);
-        // Notify all listeners about a hit event:
-        for (HitListener hl : listeners) {
-            hl.hitEvent(this, hitter);
-        }
+        // The listener array is copied when it changes, so it can be walked as it is
+        this.hitListeners.notifyHit(this, hitter);
     }
 
 }
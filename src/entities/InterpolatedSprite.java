@@ -0,0 +1,19 @@
+
+package entities;
+import render.Canvas;
+
+/**
+ * The entities.InterpolatedSprite interface represents a moving sprite that can be drawn between two
+ * simulation ticks. When the game renders more often than it simulates, or at a different moment, such a
+ * sprite is drawn part of the way from where it was at the previous tick to where it is now.
+ */
+public interface InterpolatedSprite extends Sprite {
+    /**
+     * Draws the sprite on the given Canvas, interpolated between the previous and the current tick.
+     *
+     * @param d     the Canvas to draw on
+     * @param alpha how far past the current tick the frame is, as a fraction of a tick: 0 draws the
+     *              position of the previous tick and 1 the current one
+     */
+    void drawOn(Canvas d, double alpha);
+}
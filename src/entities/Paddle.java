@@ -1,11 +1,11 @@
 
 package entities;
-import biuoop.DrawSurface;
 import biuoop.KeyboardSensor;
 import colilision.Collidable;
 import game.Game;
 import geometry.Point;
 import geometry.Rectangle;
+import render.Canvas;
 
 import java.awt.Color;
 
@@ -15,14 +15,16 @@ import java.awt.Color;
  */
 public class Paddle implements Sprite, Collidable {
     private static final double EPSILON = 0.0001; // Small constant for floating point comparison
-    private final int paddleWidth = 100;
-    private final int paddleHeight = 20;
-    private final int paddleSpeed = 5;
+    public static final int DEFAULT_WIDTH = 100;  // Size of the paddle of the built-in layout
+    public static final int DEFAULT_HEIGHT = 20;
+    public static final double DEFAULT_SPEED = 5; // Distance the paddle moves per tick at 60 ticks per second
+    private final double paddleWidth;
+    private double paddleSpeed = DEFAULT_SPEED;
     private int leftSide;
     private int rightSide;
     private final Color color = Color.YELLOW;
 
-    private Rectangle paddle;
+    private final Rectangle paddle; // Moved in place
     private KeyboardSensor keyboard;
 
     /**
@@ -35,16 +37,59 @@ public class Paddle implements Sprite, Collidable {
      * @param keyboard     the keyboard sensor to control the paddle
      */
     public Paddle(int screenWidth, int screenHeight, int leftSide, int rightSide, KeyboardSensor keyboard) {
-        // Calculate paddle initial position
-        int paddleX = (screenWidth - paddleWidth) / 2; // Center the paddle horizontally
-        int paddleY = screenHeight - 2 * paddleHeight; // Place the paddle near the bottom of the screen
-        // Create the paddle rectangle
-        this.paddle = new Rectangle(new Point(paddleX, paddleY), paddleWidth, paddleHeight, Color.YELLOW);
+        // Center the paddle horizontally and place it near the bottom of the screen
+        this(new Point((screenWidth - DEFAULT_WIDTH) / 2, screenHeight - 2 * DEFAULT_HEIGHT),
+                DEFAULT_WIDTH, DEFAULT_HEIGHT, leftSide, rightSide, keyboard);
+    }
+
+    /**
+     * Constructs a new entities.Paddle with the given position and size, e.g. as read from a level file.
+     *
+     * @param upperLeft the upper-left point of the paddle
+     * @param width     the width of the paddle
+     * @param height    the height of the paddle
+     * @param leftSide  the left boundary for the paddle
+     * @param rightSide the right boundary for the paddle
+     * @param keyboard  the keyboard sensor to control the paddle
+     */
+    public Paddle(Point upperLeft, double width, double height, int leftSide, int rightSide,
+                  KeyboardSensor keyboard) {
+        this.paddle = new Rectangle(upperLeft, width, height, Color.YELLOW);
+        this.paddleWidth = width;
         this.leftSide = leftSide;
         this.rightSide = rightSide;
         this.keyboard = keyboard;
     }
 
+    /**
+     * Returns the distance the paddle moves in one tick.
+     *
+     * @return the paddle speed
+     */
+    public double getSpeed() {
+        return this.paddleSpeed;
+    }
+
+    /**
+     * Sets the distance the paddle moves in one tick.
+     *
+     * @param speed the new paddle speed
+     */
+    public void setSpeed(double speed) {
+        this.paddleSpeed = speed;
+    }
+
+    /**
+     * Moves the paddle's upper-left corner to the given coordinates, e.g. when a game is restored.
+     * The paddle is a dynamic collidable, so the game environment needs no update.
+     *
+     * @param x the new x-coordinate of the upper-left corner
+     * @param y the new y-coordinate of the upper-left corner
+     */
+    public void moveTo(double x, double y) {
+        paddle.moveTo(x, y);
+    }
+
     /**
      * Moves the paddle to the left.
      * If the paddle goes beyond the left boundary, it wraps around to the right side.
@@ -60,7 +105,7 @@ public class Paddle implements Sprite, Collidable {
         }
 
         // Update the paddle's position
-        paddle = new Rectangle(new Point(newX, paddle.getUpperLeft().getY()), paddleWidth, paddleHeight, Color.YELLOW);
+        paddle.moveTo(newX, paddle.getUpperLeft().getY());
     }
 
     /**
@@ -78,7 +123,7 @@ public class Paddle implements Sprite, Collidable {
         }
 
         // Update the paddle's position
-        paddle = new Rectangle(new Point(newX, paddle.getUpperLeft().getY()), paddleWidth, paddleHeight, Color.YELLOW);
+        paddle.moveTo(newX, paddle.getUpperLeft().getY());
     }
 
     /**
@@ -95,12 +140,12 @@ public class Paddle implements Sprite, Collidable {
     }
 
     /**
-     * Draws the paddle on the given DrawSurface.
+     * Draws the paddle on the given Canvas.
      *
-     * @param d the DrawSurface to draw on
+     * @param d the Canvas to draw on
      */
     @Override
-    public void drawOn(DrawSurface d) {
+    public void drawOn(Canvas d) {
         this.paddle.drawOn(d);
     }
 
@@ -115,13 +160,14 @@ public class Paddle implements Sprite, Collidable {
     }
 
     /**
-     * Adds the paddle to the game as both a entities.Sprite and a Collidable.
+     * Adds the paddle to the game as both a entities.Sprite and a dynamic Collidable, which moves without
+     * updating the game environment.
      *
      * @param g the game to add the paddle to
      */
     public void addToGame(Game g) {
         g.addSprite(this);
-        g.addCollidable(this);
+        g.addDynamicCollidable(this);
     }
 
     /**
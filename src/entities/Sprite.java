@@ -1,18 +1,18 @@
 
 package entities;
-import biuoop.DrawSurface;
+import render.Canvas;
 
 /**
- * The entities.Sprite interface represents an object that can be drawn on a DrawSurface
+ * The entities.Sprite interface represents an object that can be drawn on a Canvas
  * and can update its state over time.
  */
 public interface Sprite {
     /**
-     * Draws the sprite on the given DrawSurface.
+     * Draws the sprite on the given Canvas.
      *
-     * @param d the DrawSurface to draw on
+     * @param d the Canvas to draw on
      */
-    void drawOn(DrawSurface d);
+    void drawOn(Canvas d);
 
     /**
      * Notifies the sprite that a unit of time has passed.
@@ -0,0 +1,155 @@
+
+package game;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * The BatchRunner class plays many independent headless games in parallel and summarizes them.
+ * Every game gets its own Game instance, and with it its own GameEnvironment, SpriteCollection and
+ * counters, so the games share no mutable state and the batch scales with the number of cores.
+ * Games are split into shards that run on a ForkJoinPool; each shard builds its own partial summary,
+ * and the partial summaries are merged when the shards join.
+ */
+public class BatchRunner {
+    private static final int SHARDS_PER_THREAD = 8; // Enough shards to balance games of uneven length
+    private final int parallelism;
+
+    /**
+     * Constructs a new BatchRunner using all available cores.
+     */
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new BatchRunner.
+     *
+     * @param parallelism The number of threads to play games on.
+     * @throws IllegalArgumentException If the parallelism is not positive.
+     */
+    public BatchRunner(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Plays a batch of seeded games with no keys pressed.
+     *
+     * @param games    The number of games to play.
+     * @param baseSeed The seed of the first game; game i uses baseSeed + i.
+     * @param maxTicks The tick limit of every game.
+     * @return The summary of all games.
+     */
+    public BatchSummary run(int games, long baseSeed, long maxTicks) {
+        return run(games, baseSeed, maxTicks, null);
+    }
+
+    /**
+     * Plays a batch of seeded games, each with its own paddle controller.
+     *
+     * @param games       The number of games to play.
+     * @param baseSeed    The seed of the first game; game i uses baseSeed + i.
+     * @param maxTicks    The tick limit of every game.
+     * @param controllers Creates the controller of a game from the keyboard it should press,
+     *                    or null to play without a controller.
+     * @return The summary of all games.
+     */
+    public BatchSummary run(int games, long baseSeed, long maxTicks,
+                            Function<ScriptedKeyboardSensor, PaddleController> controllers) {
+        int shardSize = Math.max(1, games / (parallelism * SHARDS_PER_THREAD));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long startTime = System.nanoTime();
+            BatchSummary summary = pool.invoke(new Shard(0, games, shardSize, baseSeed, maxTicks, controllers));
+            summary.setWallNanos(System.nanoTime() - startTime);
+            return summary;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a single seeded game.
+     *
+     * @param seed        The seed of the game.
+     * @param maxTicks    The tick limit of the game.
+     * @param controllers Creates the controller of the game, or null.
+     * @return The outcome of the game.
+     */
+    private static SimulationStats playOne(long seed, long maxTicks,
+                                           Function<ScriptedKeyboardSensor, PaddleController> controllers) {
+        ScriptedKeyboardSensor keyboard = new ScriptedKeyboardSensor();
+        Game game = new Game(keyboard, seed);
+        game.initialize();
+        PaddleController controller = controllers == null ? null : controllers.apply(keyboard);
+        return game.runHeadless(maxTicks, controller);
+    }
+
+    /**
+     * A range of games, split in half until it is small enough to play on one thread.
+     */
+    private static final class Shard extends RecursiveTask<BatchSummary> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int shardSize;
+        private final long baseSeed;
+        private final long maxTicks;
+        private final Function<ScriptedKeyboardSensor, PaddleController> controllers;
+
+        /**
+         * Constructs a new Shard covering games from (inclusive) to to (exclusive).
+         *
+         * @param from        The index of the first game.
+         * @param to          The index after the last game.
+         * @param shardSize   The largest range played without splitting.
+         * @param baseSeed    The seed of game 0.
+         * @param maxTicks    The tick limit of every game.
+         * @param controllers Creates the controller of a game, or null.
+         */
+        Shard(int from, int to, int shardSize, long baseSeed, long maxTicks,
+              Function<ScriptedKeyboardSensor, PaddleController> controllers) {
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+            this.baseSeed = baseSeed;
+            this.maxTicks = maxTicks;
+            this.controllers = controllers;
+        }
+
+        @Override
+        protected BatchSummary compute() {
+            if (to - from <= shardSize) {
+                BatchSummary summary = new BatchSummary();
+                for (int i = from; i < to; i++) {
+                    summary.add(playOne(baseSeed + i, maxTicks, controllers));
+                }
+                return summary;
+            }
+            int middle = (from + to) >>> 1;
+            Shard left = new Shard(from, middle, shardSize, baseSeed, maxTicks, controllers);
+            Shard right = new Shard(middle, to, shardSize, baseSeed, maxTicks, controllers);
+            left.fork();
+            BatchSummary summary = right.compute();
+            summary.combine(left.join());
+            return summary;
+        }
+    }
+
+    /**
+     * Plays a batch of games and prints the summary.
+     *
+     * @param args optional number of games, tick limit per game, base seed and number of threads
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long maxTicks = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+        long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        BatchRunner runner = args.length > 3 ? new BatchRunner(Integer.parseInt(args[3])) : new BatchRunner();
+        System.out.println(runner.run(games, baseSeed, maxTicks));
+    }
+}
@@ -0,0 +1,193 @@
+
+package game;
+
+/**
+ * The BatchSummary class aggregates the outcomes of many headless games.
+ * Partial summaries built on different threads are merged with combine, so no state is shared
+ * between the games while they run.
+ */
+public class BatchSummary {
+    private int games;
+    private int cleared;          // Games that ended with all blocks broken
+    private int lost;             // Games that ended with all balls gone
+    private long totalTicks;
+    private long simulationNanos; // Sum of the time every game took on its own thread
+    private long wallNanos;       // Time the whole batch took
+    private long scoreSum;
+    private int minScore = Integer.MAX_VALUE;
+    private int maxScore = Integer.MIN_VALUE;
+    private long remainingBallsSum;
+    private long remainingBlocksSum;
+
+    /**
+     * Adds the outcome of a single game to this summary.
+     *
+     * @param stats The outcome of the game.
+     */
+    public void add(SimulationStats stats) {
+        games++;
+        if (stats.getRemainingBlocks() <= 0) {
+            cleared++;
+        } else if (stats.getRemainingBalls() <= 0) {
+            lost++;
+        }
+        totalTicks += stats.getTicks();
+        simulationNanos += stats.getElapsedNanos();
+        scoreSum += stats.getScore();
+        minScore = Math.min(minScore, stats.getScore());
+        maxScore = Math.max(maxScore, stats.getScore());
+        remainingBallsSum += stats.getRemainingBalls();
+        remainingBlocksSum += stats.getRemainingBlocks();
+    }
+
+    /**
+     * Merges another summary into this one.
+     *
+     * @param other The summary to merge.
+     */
+    public void combine(BatchSummary other) {
+        games += other.games;
+        cleared += other.cleared;
+        lost += other.lost;
+        totalTicks += other.totalTicks;
+        simulationNanos += other.simulationNanos;
+        scoreSum += other.scoreSum;
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        remainingBallsSum += other.remainingBallsSum;
+        remainingBlocksSum += other.remainingBlocksSum;
+    }
+
+    /**
+     * Sets the time the whole batch took.
+     *
+     * @param nanos The elapsed wall-clock time, in nanoseconds.
+     */
+    public void setWallNanos(long nanos) {
+        this.wallNanos = nanos;
+    }
+
+    /**
+     * Returns the number of games in this summary.
+     *
+     * @return The number of games.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games that ended with all blocks broken.
+     *
+     * @return The number of cleared games.
+     */
+    public int getCleared() {
+        return cleared;
+    }
+
+    /**
+     * Returns the number of games that ended with all balls gone.
+     *
+     * @return The number of lost games.
+     */
+    public int getLost() {
+        return lost;
+    }
+
+    /**
+     * Returns the number of games that were still running when the tick limit was reached.
+     *
+     * @return The number of unfinished games.
+     */
+    public int getUnfinished() {
+        return games - cleared - lost;
+    }
+
+    /**
+     * Returns the number of ticks simulated over all games.
+     *
+     * @return The total number of ticks.
+     */
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    /**
+     * Returns the batch throughput, in ticks per wall-clock second over all threads.
+     *
+     * @return The number of ticks per second, or 0 if no time was measured.
+     */
+    public double getTicksPerSecond() {
+        if (wallNanos <= 0) {
+            return 0;
+        }
+        return totalTicks * 1e9 / wallNanos;
+    }
+
+    /**
+     * Returns how many games ran at once on average: the summed per-game time over the batch time.
+     * With near-linear scaling this is close to the number of threads.
+     *
+     * @return The effective parallelism, or 0 if no time was measured.
+     */
+    public double getEffectiveParallelism() {
+        if (wallNanos <= 0) {
+            return 0;
+        }
+        return (double) simulationNanos / wallNanos;
+    }
+
+    /**
+     * Returns the mean final score.
+     *
+     * @return The mean score, or 0 for an empty summary.
+     */
+    public double getMeanScore() {
+        return games == 0 ? 0 : (double) scoreSum / games;
+    }
+
+    /**
+     * Returns the lowest final score.
+     *
+     * @return The lowest score, or 0 for an empty summary.
+     */
+    public int getMinScore() {
+        return games == 0 ? 0 : minScore;
+    }
+
+    /**
+     * Returns the highest final score.
+     *
+     * @return The highest score, or 0 for an empty summary.
+     */
+    public int getMaxScore() {
+        return games == 0 ? 0 : maxScore;
+    }
+
+    /**
+     * Returns the mean number of balls left at the end of a game.
+     *
+     * @return The mean remaining balls, or 0 for an empty summary.
+     */
+    public double getMeanRemainingBalls() {
+        return games == 0 ? 0 : (double) remainingBallsSum / games;
+    }
+
+    /**
+     * Returns the mean number of breakable blocks left at the end of a game.
+     *
+     * @return The mean remaining blocks, or 0 for an empty summary.
+     */
+    public double getMeanRemainingBlocks() {
+        return games == 0 ? 0 : (double) remainingBlocksSum / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games=%d cleared=%d lost=%d unfinished=%d ticks=%d wall=%.3fs ticks/s=%.0f "
+                        + "parallelism=%.2f score(mean/min/max)=%.1f/%d/%d balls(mean)=%.2f blocks(mean)=%.2f",
+                games, cleared, lost, getUnfinished(), totalTicks, wallNanos / 1e9, getTicksPerSecond(),
+                getEffectiveParallelism(), getMeanScore(), getMinScore(), getMaxScore(),
+                getMeanRemainingBalls(), getMeanRemainingBlocks());
+    }
+}
@@ -0,0 +1,64 @@
+package game;
+
+import entities.Block;
+import render.DrawCommandList;
+
+/**
+ * The FrameState class is one frame handed from the simulation thread to the render thread: the commands of
+ * the moving sprites and the score, drawn at the interpolated positions of the frame, and the blocks in play.
+ * The blocks are an array shared by every frame until a block is added or removed, tagged with a version so
+ * the render thread only updates its BlockLayer when they change. Three of these are reused in a TripleBuffer.
+ */
+final class FrameState {
+    private final DrawCommandList commands;
+    private Block[] blocks = new Block[0];
+    private long blockVersion = -1;
+
+    /**
+     * Constructs a new, empty FrameState.
+     *
+     * @param width  the width of the screen in pixels
+     * @param height the height of the screen in pixels
+     */
+    FrameState(int width, int height) {
+        this.commands = new DrawCommandList(width, height);
+    }
+
+    /**
+     * Returns the commands of the frame.
+     *
+     * @return the command list, cleared and refilled for every frame
+     */
+    DrawCommandList getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * Returns the blocks in play.
+     *
+     * @return the blocks; the array is never changed after it is set
+     */
+    Block[] getBlocks() {
+        return this.blocks;
+    }
+
+    /**
+     * Returns the version of the blocks in play.
+     *
+     * @return the version, which changes whenever the blocks do
+     */
+    long getBlockVersion() {
+        return this.blockVersion;
+    }
+
+    /**
+     * Sets the blocks in play.
+     *
+     * @param live    the blocks, an array that must not be changed afterwards
+     * @param version the version of the blocks
+     */
+    void setBlocks(Block[] live, long version) {
+        this.blocks = live;
+        this.blockVersion = version;
+    }
+}
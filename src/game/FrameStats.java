@@ -0,0 +1,152 @@
+
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The FrameStats class collects frame-time statistics of the game loop: how long frames took,
+ * how many simulation ticks ran per frame, and the resulting frame and tick rates.
+ * The most recent frame times are kept in a ring buffer, so percentiles reflect current behaviour.
+ */
+public class FrameStats {
+    private static final int WINDOW = 256; // Number of recent frames kept for percentiles
+    private final long[] recent;           // Ring buffer of the most recent frame times, in nanoseconds
+    private long recentNanos;              // Sum of the frame times in recent
+    private long frames;
+    private long ticks;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long lastNanos;
+
+    /**
+     * Constructs a new, empty FrameStats.
+     */
+    public FrameStats() {
+        this.recent = new long[WINDOW];
+    }
+
+    /**
+     * Records a rendered frame.
+     *
+     * @param frameNanos The time since the previous frame, in nanoseconds.
+     * @param frameTicks The number of simulation ticks run for this frame.
+     */
+    public void recordFrame(long frameNanos, int frameTicks) {
+        int slot = (int) (frames % WINDOW);
+        recentNanos += frameNanos - recent[slot];
+        recent[slot] = frameNanos;
+        frames++;
+        ticks += frameTicks;
+        totalNanos += frameNanos;
+        minNanos = Math.min(minNanos, frameNanos);
+        maxNanos = Math.max(maxNanos, frameNanos);
+        lastNanos = frameNanos;
+    }
+
+    /**
+     * Returns the number of frames recorded.
+     *
+     * @return The number of frames.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the number of simulation ticks run over all recorded frames.
+     *
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the time of the last recorded frame.
+     *
+     * @return The last frame time in nanoseconds, or 0 if no frame was recorded.
+     */
+    public long getLastFrameNanos() {
+        return lastNanos;
+    }
+
+    /**
+     * Returns the mean frame time.
+     *
+     * @return The mean frame time in nanoseconds, or 0 if no frame was recorded.
+     */
+    public double getMeanFrameNanos() {
+        return frames == 0 ? 0 : (double) totalNanos / frames;
+    }
+
+    /**
+     * Returns the shortest frame time.
+     *
+     * @return The shortest frame time in nanoseconds, or 0 if no frame was recorded.
+     */
+    public long getMinFrameNanos() {
+        return frames == 0 ? 0 : minNanos;
+    }
+
+    /**
+     * Returns the longest frame time.
+     *
+     * @return The longest frame time in nanoseconds.
+     */
+    public long getMaxFrameNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns a percentile of the most recent frame times.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The frame time at that percentile in nanoseconds, or 0 if no frame was recorded.
+     */
+    public long getRecentPercentileNanos(double percentile) {
+        int count = (int) Math.min(frames, WINDOW);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(recent, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Returns the measured frame rate.
+     *
+     * @return The number of frames per second, or 0 if no time was measured.
+     */
+    public double getFramesPerSecond() {
+        return totalNanos == 0 ? 0 : frames * 1e9 / totalNanos;
+    }
+
+    /**
+     * Returns the frame rate over the most recent frames, which follows changes faster than
+     * getFramesPerSecond().
+     *
+     * @return The number of frames per second, or 0 if no time was measured.
+     */
+    public double getRecentFramesPerSecond() {
+        return recentNanos == 0 ? 0 : Math.min(frames, WINDOW) * 1e9 / recentNanos;
+    }
+
+    /**
+     * Returns the measured simulation rate.
+     *
+     * @return The number of ticks per second, or 0 if no time was measured.
+     */
+    public double getTicksPerSecond() {
+        return totalNanos == 0 ? 0 : ticks * 1e9 / totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d fps=%.1f ticks/s=%.1f frame(ms) mean=%.2f min=%.2f max=%.2f p99=%.2f",
+                frames, getFramesPerSecond(), getTicksPerSecond(), getMeanFrameNanos() / 1e6,
+                getMinFrameNanos() / 1e6, getMaxFrameNanos() / 1e6, getRecentPercentileNanos(99) / 1e6);
+    }
+}
@@ -1,7 +1,6 @@
 
 package game;
 
-import biuoop.DrawSurface;
 import biuoop.GUI;
 import biuoop.Sleeper;
 import biuoop.KeyboardSensor;
@@ -9,6 +8,7 @@ import colilision.Collidable;
 import collections.GameEnvironment;
 import collections.SpriteCollection;
 import entities.Ball;
+import entities.BallSystem;
 import entities.Block;
 import entities.Paddle;
 import entities.Sprite;
@@ -17,19 +17,31 @@ import geometry.Point;
 import geometry.Rectangle;
 import listeners.BallRemover;
 import listeners.BlockRemover;
+import listeners.HitEventBus;
 import listeners.ScoreTrackingListener;
+import render.BiuoopBackend;
+import render.DrawCommandList;
+import render.RenderBackend;
+import render.TripleBuffer;
+import ui.BlockLayer;
 import ui.ScoreIndicator;
 import utils.Counter;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The Game class represents the main game engine that manages sprites, collidables,
  * and game elements such as the paddle, balls, blocks, and frames.
  */
-public class Game {
+public class Game implements AutoCloseable {
     private final int screenWidth = 800;     // Screen width
     private final int screenHeight = 620;    // Screen height
     private final int frameSize = 25;        // Size of the frame blocks
@@ -37,6 +49,10 @@ public class Game {
     private final int radius = 10;            // Radius of each ball
     private final int blockHeight = 25;      // Height of blocks
     private final int blockWidth = 50;       // Width of blocks
+    private final double launchSpread = Math.PI / 12; // Largest random change of a seeded launch angle
+    private final int baseTickRate = 60;     // Tick rate the ball and paddle speeds are given for
+    private final int framesPerSecond = 60;  // Rendering rate of the game window
+    private final long maxFrameNanos = 250_000_000L; // Longest frame time simulated, avoids a spiral of death
 
     /**
      * Enum defining colors available for blocks in the game.
@@ -65,9 +81,10 @@ public class Game {
         }
     }
 
-    private GUI gui;                        // GUI object for drawing
+    private GUI gui;                        // GUI object for drawing, null when running headless
+    private KeyboardSensor keyboard;        // Keyboard controlling the paddle
     private Paddle paddle;                  // The game paddle
-    private Block[] frames;                 // Array of frame blocks
+    private ArrayList<Block> frames;        // Blocks that are never broken, like the frame around the screen
     private ArrayList<Block> obstacles;     // List of obstacle blocks
     private ArrayList<Ball> balls;          // List of balls in the game
     private SpriteCollection sprites;       // Collection of game sprites
@@ -77,22 +94,345 @@ public class Game {
     private Counter blockCounter;
     private Counter ballCounter;
     private Counter scoreCounter;
+    private Random random;                  // Varies the ball launch angles, null for the fixed layout
+    private long seed;                      // Seed of random, kept for recordings
+    private int tickRate = baseTickRate;    // Simulation ticks per second
+    private int ballCount = ballNum;        // Number of balls launched by setBalls()
+    private boolean multiball;              // Whether the balls are stored in a BallSystem
+    private Ball.CollisionMode collisionMode = Ball.CollisionMode.POINT; // How the balls detect collisions
+    private BallSystem ballSystem;          // The balls in multiball mode, null otherwise
+    private int physicsThreads = 1;         // Threads the ball system spreads its collision queries over
+    private ForkJoinPool physicsPool;       // Pool the physics step runs on, null to run on the calling thread
+    private boolean ownsPhysicsPool;        // Whether physicsPool was created by this game and is shut down by it
+    private FrameStats frameStats;          // Frame-time statistics of the window loop
+    private ReplayRecorder recorder;        // Records the session, null when not recording
+    private boolean finished;               // Whether the end-of-game score was applied
+    private HitEventBus hitEvents;          // Hits of the tick, dispatched to the listeners at its end
+    private ScoreIndicator scoreIndicator;
+    private long tickCount;                 // Number of ticks simulated
+    private int snapshotInterval;           // Ticks between snapshots, 0 when snapshots are off
+    private SnapshotBuffer snapshots;       // The most recent snapshots, null when snapshots are off
+    private BlockLayer blockLayer;          // Cached background and blocks, null until the first frame
+    private DrawCommandList frame;          // Commands of the frame being rendered, reused every frame
+    private RenderBackend renderBackend;    // Draws the frames of run(), null for the window's own surface
+    private boolean renderThread;           // Whether run() draws the frames on a separate render thread
+    private Block[] liveBlocks;             // Blocks in play as last published to the render thread
+    private long liveBlocksVersion = -1;    // Version of the block layer liveBlocks was copied from
+    private Path levelFile;                 // Level the layout is loaded from, null for the built-in layout
 
     /**
      * Constructs a new Game instance. Initializes GUI, sprites, game environment, and game elements.
      */
     public Game() {
+        this.gui = new GUI("Game", screenWidth, screenHeight);
+        this.keyboard = gui.getKeyboardSensor();
+        createCollections();
+    }
+
+    /**
+     * Constructs a new headless Game instance, with no window. The game can only be advanced with
+     * tick() or runHeadless(long), and the paddle is controlled by the given keyboard.
+     *
+     * @param keyboard The keyboard controlling the paddle, e.g. a ScriptedKeyboardSensor.
+     */
+    public Game(KeyboardSensor keyboard) {
+        this.keyboard = keyboard;
+        createCollections();
+    }
+
+    /**
+     * Constructs a new headless, seeded Game instance. The layout is the same as in any other game,
+     * but each ball is launched at an angle randomly varied by the seed, so different seeds play out
+     * differently while the same seed always replays identically.
+     *
+     * @param keyboard The keyboard controlling the paddle, e.g. a ScriptedKeyboardSensor.
+     * @param seed     The seed of the launch angle variations.
+     */
+    public Game(KeyboardSensor keyboard, long seed) {
+        this(keyboard);
+        this.random = new Random(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Creates the empty sprite collection, game environment, counters and element lists.
+     */
+    private void createCollections() {
         this.balls = new ArrayList<>();
-        this.frames = new Block[4];
+        this.frames = new ArrayList<>();
         this.obstacles = new ArrayList<>();
         this.screen = new Rectangle(new Point(0, screenHeight), screenWidth, screenHeight);
         this.screen.setColor(Color.blue.darker());
         this.environment = new GameEnvironment();
         this.sprites = new SpriteCollection();
-        this.gui = new GUI("Game", screenWidth, screenHeight);
         this.blockCounter = new Counter();
         this.ballCounter = new Counter();
         this.scoreCounter = new Counter();
+        this.hitEvents = new HitEventBus();
+        this.frameStats = new FrameStats();
+        this.frame = new DrawCommandList(screenWidth, screenHeight);
+    }
+
+    /**
+     * Sets the number of simulation ticks per second, e.g. 60, 120 or 240.
+     * Ball and paddle speeds are scaled so the game plays at the same pace at any tick rate;
+     * higher rates only make the steps finer. Must be called before initialize().
+     *
+     * @param ticksPerSecond The new tick rate.
+     * @throws IllegalArgumentException If the tick rate is not positive.
+     * @throws IllegalStateException    If the game was already initialized.
+     */
+    public void setTickRate(int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive.");
+        }
+        if (this.paddle != null) {
+            throw new IllegalStateException("Tick rate must be set before the game is initialized.");
+        }
+        this.tickRate = ticksPerSecond;
+    }
+
+    /**
+     * Returns the number of simulation ticks per second.
+     *
+     * @return The tick rate.
+     */
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Sets the number of balls launched when the game is initialized. Must be called before initialize().
+     *
+     * @param count The new number of balls.
+     * @throws IllegalArgumentException If the count is not positive.
+     * @throws IllegalStateException    If the game was already initialized.
+     */
+    public void setBallCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Ball count must be positive.");
+        }
+        if (this.paddle != null) {
+            throw new IllegalStateException("Ball count must be set before the game is initialized.");
+        }
+        this.ballCount = count;
+    }
+
+    /**
+     * Returns the number of balls launched when the game is initialized.
+     *
+     * @return The ball count.
+     */
+    public int getBallCount() {
+        return this.ballCount;
+    }
+
+    /**
+     * Sets whether the balls are stored together in a single BallSystem instead of one Ball object each,
+     * which is faster for a large ball count. Must be called before initialize().
+     *
+     * @param enabled True to store the balls in a BallSystem.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setMultiball(boolean enabled) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("Multiball must be set before the game is initialized.");
+        }
+        this.multiball = enabled;
+    }
+
+    /**
+     * Sets the way the balls detect collisions, e.g. Ball.CollisionMode.SWEPT_CIRCLE for fast balls that
+     * must neither tunnel through blocks nor overlap them. Must be called before initialize().
+     *
+     * @param mode The collision mode of every ball.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setCollisionMode(Ball.CollisionMode mode) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("The collision mode must be set before the game is initialized.");
+        }
+        this.collisionMode = mode;
+    }
+
+    /**
+     * Returns the way the balls detect collisions.
+     *
+     * @return The collision mode of every ball.
+     */
+    public Ball.CollisionMode getCollisionMode() {
+        return this.collisionMode;
+    }
+
+    /**
+     * Sets the number of threads the physics step of the balls is spread over. With more than one thread the
+     * game switches to multiball mode, and the collision queries and movement of the balls run in parallel,
+     * while their hits are still handled one after the other in a fixed order, so the game plays out exactly
+     * as with a single thread. Must be called before initialize().
+     *
+     * @param threads The number of threads, 1 to run the physics on the calling thread.
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     * @throws IllegalStateException    If the game was already initialized.
+     */
+    public void setPhysicsThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of physics threads must be positive.");
+        }
+        if (this.paddle != null) {
+            throw new IllegalStateException("Physics threads must be set before the game is initialized.");
+        }
+        this.physicsThreads = threads;
+        this.physicsPool = null;
+        if (threads > 1) {
+            this.multiball = true;
+        }
+    }
+
+    /**
+     * Makes the physics step of the balls run on the given pool, which may be shared by many games, e.g. the
+     * games of a benchmark or a batch. The game switches to multiball mode and plays out exactly as with a
+     * single thread, as with setPhysicsThreads; the pool belongs to the caller and is not shut down by
+     * close(). Must be called before initialize().
+     *
+     * @param pool The pool, or null to run the physics on the calling thread.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setPhysicsPool(ForkJoinPool pool) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("The physics pool must be set before the game is initialized.");
+        }
+        this.physicsPool = pool;
+        this.physicsThreads = pool == null ? 1 : pool.getParallelism();
+        if (pool != null) {
+            this.multiball = true;
+        }
+    }
+
+    /**
+     * Sets the kind of counter that counts the blocks, balls and score, e.g. Counter.Kind.STRIPED when
+     * listeners update them from several threads, or a metrics thread reads them while the game runs.
+     * Must be called before initialize().
+     *
+     * @param kind The counter implementation.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setCounterKind(Counter.Kind kind) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("The counter kind must be set before the game is initialized.");
+        }
+        this.blockCounter = kind.create();
+        this.ballCounter = kind.create();
+        this.scoreCounter = kind.create();
+    }
+
+    /**
+     * Returns the number of threads the physics step of the balls is spread over.
+     *
+     * @return The number of physics threads.
+     */
+    public int getPhysicsThreads() {
+        return this.physicsThreads;
+    }
+
+    /**
+     * Records this game into the given recorder, so the session can be replayed by a ReplayPlayer.
+     * The recorder takes the place of the keyboard, reading the paddle keys once per tick.
+     * Must be called before initialize(); the recording ends when the game is over or the recorder is closed.
+     *
+     * @param r The recorder to record into.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setRecorder(ReplayRecorder r) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("The recorder must be set before the game is initialized.");
+        }
+        r.attach(this, this.keyboard);
+        this.recorder = r;
+        this.keyboard = r;
+    }
+
+    /**
+     * Makes the game take a WorldSnapshot every given number of ticks, keeping the most recent ones in a
+     * SnapshotBuffer. A tick already covered by the buffer, e.g. when ticks are simulated again after a
+     * restore, is not snapshotted twice.
+     *
+     * @param ticks    The number of ticks between snapshots.
+     * @param capacity The number of snapshots kept.
+     * @throws IllegalArgumentException If the interval or the capacity is not positive.
+     */
+    public void setSnapshotInterval(int ticks, int capacity) {
+        if (ticks <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive.");
+        }
+        this.snapshotInterval = ticks;
+        this.snapshots = new SnapshotBuffer(capacity);
+    }
+
+    /**
+     * Returns the snapshots taken by this game.
+     *
+     * @return The snapshot buffer, or null if setSnapshotInterval was not called.
+     */
+    public SnapshotBuffer getSnapshots() {
+        return this.snapshots;
+    }
+
+    /**
+     * Returns whether the balls are stored together in a single BallSystem.
+     *
+     * @return True in multiball mode, false otherwise.
+     */
+    public boolean isMultiball() {
+        return this.multiball;
+    }
+
+    /**
+     * Sets the backend that draws the frames of the window loop, e.g. a Java2DBackend showing its frames in the
+     * window. By default the frames are drawn on the window's own DrawSurface by a BiuoopBackend.
+     *
+     * @param backend The backend, or null for the default.
+     */
+    public void setRenderBackend(RenderBackend backend) {
+        this.renderBackend = backend;
+    }
+
+    /**
+     * Sets whether run() draws the frames on a separate render thread. The simulation thread then only
+     * records each frame and publishes it through a lock-free triple buffer; the render thread draws the
+     * newest frame with the render backend. A window that is slow to repaint then drops frames instead of
+     * delaying ticks.
+     *
+     * @param enabled True to draw on a render thread.
+     */
+    public void setRenderThread(boolean enabled) {
+        this.renderThread = enabled;
+    }
+
+    /**
+     * Returns the screen width in pixels.
+     *
+     * @return The screen width.
+     */
+    public int getScreenWidth() {
+        return this.screenWidth;
+    }
+
+    /**
+     * Returns the screen height in pixels.
+     *
+     * @return The screen height.
+     */
+    public int getScreenHeight() {
+        return this.screenHeight;
+    }
+
+    /**
+     * Returns the frame-time statistics of the window loop.
+     *
+     * @return The frame statistics.
+     */
+    public FrameStats getFrameStats() {
+        return this.frameStats;
     }
 
     /**
@@ -102,6 +442,9 @@ public class Game {
      */
     public void addSprite(Sprite s) {
         this.sprites.addSprite(s);
+        if (blockLayer != null && s instanceof Block) {
+            blockLayer.add((Block) s);
+        }
     }
 
     /**
@@ -113,33 +456,95 @@ public class Game {
         this.environment.addCollidable(c);
     }
 
+    /**
+     * Adds a dynamic collidable object, one that moves often like the paddle, to the game environment.
+     *
+     * @param c The collidable object to add.
+     */
+    public void addDynamicCollidable(Collidable c) {
+        this.environment.addDynamicCollidable(c);
+    }
+
     /**
      * Sets up the frame blocks around the game screen.
      */
     public void setFrames() {
-        // Top frame block
-        frames[0] = new Block(new Point(0, screenHeight + 2 * frameSize), screenWidth, frameSize, Color.gray);
-        this.frames[0].addToGame(this);
-        this.deathRegion = frames[0];
+        buildFrames(new Builder(), screenWidth, screenHeight);
+    }
 
-        // Bottom frame block
-        frames[1] = new Block(new Point(0, 2 * frameSize), screenWidth, frameSize, Color.gray);
-        this.frames[1].addToGame(this);
+    /**
+     * Creates lines of blocks on the game screen.
+     */
+    public void createBlocks() {
+        buildBlocks(new Builder(), 0, 0);
+    }
+
+    /**
+     * Creates and initializes the paddle object.
+     */
+    public void createPaddle() {
+        buildPaddle(new Builder(), screenWidth, screenHeight);
+    }
 
+    /**
+     * Sets up the balls in the game environment.
+     */
+    public void setBalls() {
+        createBallSystem();
+        buildBalls(new Builder(), screenWidth, screenHeight);
+    }
+
+    /**
+     * Builds the built-in layout into a level builder, e.g. a LevelWriter: the frame, the lines of blocks, the
+     * paddle and the balls, as initialize() builds them. With several columns or rows, the lines of blocks are
+     * tiled over a level of that many screens, with a single frame around it and the paddle and balls at the
+     * middle of its bottom.
+     *
+     * @param out     The builder the layout is built into.
+     * @param columns The number of screens across.
+     * @param rows    The number of screens down.
+     * @throws IllegalArgumentException If the number of columns or rows is not positive.
+     */
+    public void buildLayout(LevelBuilder out, int columns, int rows) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("The layout needs at least one column and one row.");
+        }
+        int width = columns * screenWidth;
+        int height = rows * screenHeight;
+        buildFrames(out, width, height);
+        for (int tile = 0; tile < columns * rows; tile++) {
+            buildBlocks(out, (tile % columns) * screenWidth, (tile / columns) * screenHeight);
+        }
+        buildPaddle(out, width, height);
+        buildBalls(out, width, height);
+    }
+
+    /**
+     * Builds the frame blocks around a level. Balls bounce off the frame without breaking it or scoring.
+     *
+     * @param out    The builder the blocks are built into.
+     * @param width  The width of the level.
+     * @param height The height of the level.
+     */
+    private void buildFrames(LevelBuilder out, int width, int height) {
+        // Top frame block, which removes the balls that reach it
+        out.addBlock(0, height + 2 * frameSize, width, frameSize, Color.gray, 0, false, true);
+        // Bottom frame block
+        out.addBlock(0, 2 * frameSize, width, frameSize, Color.gray, 0, false, false);
         // Left frame block
-        frames[2] = new Block(new Point(0, screenHeight), frameSize,
-                screenHeight - frameSize, Color.gray);
-        this.frames[2].addToGame(this);
+        out.addBlock(0, height, frameSize, height - frameSize, Color.gray, 0, false, false);
         // Right frame block
-        frames[3] = new Block(new Point(screenWidth - frameSize, screenHeight), frameSize,
-                screenHeight - frameSize, Color.gray);
-        this.frames[3].addToGame(this);
+        out.addBlock(width - frameSize, height, frameSize, height - frameSize, Color.gray, 0, false, false);
     }
 
     /**
-     * Creates lines of blocks on the game screen.
+     * Builds the lines of blocks of one screen.
+     *
+     * @param out     The builder the blocks are built into.
+     * @param offsetX The x-coordinate of the screen in the level.
+     * @param offsetY The y-coordinate of the screen in the level.
      */
-    public void createBlocks() {
+    private void buildBlocks(LevelBuilder out, double offsetX, double offsetY) {
         double startY = screenHeight / 4; // Start from one-fourth down the screen height
 
         for (int i = 0; i < 6; i++) {
@@ -147,73 +552,104 @@ public class Game {
             for (int j = 0; j < 12 - i; j++) {
                 double x = screenWidth - frameSize - (j + 1) * blockWidth; // Start from the right
                 double y = startY + i * blockHeight; // Increment the y position for each line
-                Block b = new Block(new Point(x, y), blockWidth, blockHeight, color.getColor());
-                this.obstacles.add(b);
-                b.addToGame(this);
-                blockCounter.increase(1);
+                out.addBlock(offsetX + x, offsetY + y, blockWidth, blockHeight, color.getColor(),
+                        Block.DEFAULT_POINTS, true, false);
             }
         }
     }
 
     /**
-     * Creates and initializes the paddle object.
+     * Builds the paddle, centered horizontally near the bottom of a level.
+     *
+     * @param out    The builder the paddle is built into.
+     * @param width  The width of the level.
+     * @param height The height of the level.
      */
-    public void createPaddle() {
-        KeyboardSensor keyboard = gui.getKeyboardSensor();
-        this.paddle = new Paddle(screenWidth, screenHeight, frameSize, screenWidth - frameSize, keyboard);
-        paddle.addToGame(this);
+    private void buildPaddle(LevelBuilder out, int width, int height) {
+        out.setPaddle((width - Paddle.DEFAULT_WIDTH) / 2, height - 2 * Paddle.DEFAULT_HEIGHT, Paddle.DEFAULT_WIDTH,
+                Paddle.DEFAULT_HEIGHT, Paddle.DEFAULT_SPEED, frameSize, width - frameSize);
     }
 
     /**
-     * Sets up the balls in the game environment.
+     * Builds the balls, launched from the middle of the bottom of a level.
+     *
+     * @param out    The builder the balls are built into.
+     * @param width  The width of the level.
+     * @param height The height of the level.
      */
-    public void setBalls() {
-        for (int i = 0; i < ballNum; i++) {
-            int x = screenWidth / 2;
-            int y = (screenHeight - 7 * frameSize);
-            Ball newB = new Ball(new Point(x, y), radius, this.environment, Color.ORANGE);
-
-            newB.setVelocity(Velocity.fromAngleAndSpeed(i * Math.PI / 3 - Math.PI / 3, 3.5));
-            newB.addToGame(this);
-            this.balls.add(newB);
-            this.ballCounter.increase(1);
+    private void buildBalls(LevelBuilder out, int width, int height) {
+        for (int i = 0; i < ballCount; i++) {
+            int x = width / 2;
+            int y = (height - 7 * frameSize);
+            out.addBall(x, y, radius, i * Math.PI / 3 - Math.PI / 3, 3.5, Color.ORANGE);
         }
     }
 
     /**
-     * Adds a listeners.BlockRemover object to the game.
-     *
-     * @param remover The listeners.BlockRemover object to add.
+     * Creates the ball system the balls are stored in, in multiball mode.
      */
-    private void addBlockRemover(BlockRemover remover) {
-        for (Block b : this.obstacles) {
-            b.addHitListener(remover);
+    private void createBallSystem() {
+        if (multiball) {
+            this.ballSystem = new BallSystem(this.environment, ballCount);
+            this.ballSystem.setCollisionMode(collisionMode);
+            if (physicsPool == null && physicsThreads > 1) {
+                this.physicsPool = new ForkJoinPool(physicsThreads);
+                this.ownsPhysicsPool = true;
+            }
+            this.ballSystem.setParallelism(physicsPool);
+            this.ballSystem.addToGame(this);
         }
     }
 
-    private void addBallRemover(BallRemover remover) {
-        for (Ball b : this.balls) {
-            b.addHitListener(remover);
+    /**
+     * Launches a ball. In a seeded game the angle is varied randomly; the speed is scaled to the tick rate.
+     *
+     * @param x     The x-coordinate of the ball's center.
+     * @param y     The y-coordinate of the ball's center.
+     * @param r     The radius of the ball.
+     * @param angle The launch angle, in radians.
+     * @param speed The distance the ball moves per tick at the base tick rate.
+     * @param color The color of the ball.
+     */
+    private void launchBall(double x, double y, int r, double angle, double speed, Color color) {
+        if (this.random != null) {
+            angle += (2 * this.random.nextDouble() - 1) * launchSpread;
         }
-    }
-
-    private void addScoreTracker(ScoreTrackingListener tracker) {
-        for (Ball b : this.balls) {
-            b.addHitListener(tracker);
+        Velocity v = Velocity.fromAngleAndSpeed(angle, speed * baseTickRate / tickRate);
+        if (multiball) {
+            this.ballSystem.addBall(x, y, r, v, color);
+        } else {
+            Ball newB = new Ball(new Point(x, y), r, this.environment, color);
+            newB.setVelocity(v);
+            newB.setCollisionMode(collisionMode);
+            newB.addToGame(this);
+            this.balls.add(newB);
         }
+        this.ballCounter.increase(1);
     }
 
     /**
      * Updates the counters for blocks, balls, and score.
+     * The listeners subscribe to the hit event bus once, instead of being added to every block and ball. The
+     * ball remover and score tracker come first, as they did on the balls, so the score tracker sees each
+     * block before the block remover removes it and recolors the ball.
      */
     public void updateCounters() {
-        BlockRemover b = new BlockRemover(this, this.blockCounter);
-        b.processUnremovedBlockCollision(new ArrayList<>(Arrays.asList(this.frames)));
-        addBlockRemover(b);
-        addBallRemover(new BallRemover(this, this.deathRegion, this.ballCounter));
-        ScoreTrackingListener c = new ScoreTrackingListener(scoreCounter);
-        c.processUnscoredBlockCollision(new ArrayList<>(Arrays.asList(this.frames)));
-        addScoreTracker(c);
+        BlockRemover blockRemover = new BlockRemover(this, this.blockCounter);
+        BallRemover ballRemover = new BallRemover(this, this.deathRegion, this.ballCounter);
+        ScoreTrackingListener scoreTracker = new ScoreTrackingListener(scoreCounter);
+        hitEvents.subscribe(ballRemover);
+        hitEvents.subscribe(scoreTracker);
+        hitEvents.subscribe(blockRemover);
+    }
+
+    /**
+     * Returns the hit event bus of this game, where blocks publish their hits.
+     *
+     * @return The hit event bus.
+     */
+    public HitEventBus getHitEvents() {
+        return this.hitEvents;
     }
 
 
@@ -221,52 +657,589 @@ public class Game {
      * Initializes the score board.
      */
     private void createScoreBoard() {
-        ScoreIndicator scoreIndicator =
+        this.scoreIndicator =
                 new ScoreIndicator(new Rectangle(new Point(0, 0), screenWidth, frameSize, Color.white),
                         scoreCounter);
+        scoreIndicator.setLives(ballCounter);
+        scoreIndicator.setBlocks(blockCounter);
         scoreIndicator.addToGame(this);
     }
 
 
     /**
-     * Initializes the game by setting up frames, lines of blocks, paddle, and balls.
+     * Makes initialize() load the blocks, paddle and balls from a level file written by a LevelWriter, instead
+     * of building the built-in layout. The ball count becomes the number of balls in the file. Must be called
+     * before initialize().
+     *
+     * @param file The level file, or null for the built-in layout.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public void setLevel(Path file) {
+        if (this.paddle != null) {
+            throw new IllegalStateException("The level must be set before the game is initialized.");
+        }
+        this.levelFile = file;
+    }
+
+    /**
+     * Prepares the game for the blocks of a level file, so they are indexed as they are added. Called by
+     * LevelLoader before the first block.
+     *
+     * @param count The number of blocks.
+     * @param minX  The lower x bound of the blocks.
+     * @param minY  The lower y bound of the blocks.
+     * @param maxX  The upper x bound of the blocks.
+     * @param maxY  The upper y bound of the blocks.
+     */
+    void reserveBlocks(int count, double minX, double minY, double maxX, double maxY) {
+        if (count == 0) {
+            return;
+        }
+        environment.reserve(minX, minY, maxX, maxY, count);
+        obstacles.ensureCapacity(count);
+    }
+
+    /**
+     * Adds a block of a level file to the game. Breakable blocks are counted as obstacles, the others kept
+     * with the frame; the first death region removes the balls. Called by LevelLoader and the built-in layout.
+     *
+     * @param b The block, with its flags set.
+     */
+    void addLevelBlock(Block b) {
+        b.addToGame(this);
+        if (b.isBreakable()) {
+            this.obstacles.add(b);
+            blockCounter.increase(1);
+        } else {
+            this.frames.add(b);
+        }
+        if (b.isDeathRegion() && this.deathRegion == null) {
+            this.deathRegion = b;
+        }
+    }
+
+    /**
+     * Creates the paddle of a level file. Called by LevelLoader and the built-in layout.
+     *
+     * @param upperLeft The upper-left point of the paddle.
+     * @param width     The width of the paddle.
+     * @param height    The height of the paddle.
+     * @param speed     The distance the paddle moves per tick at the base tick rate.
+     * @param leftSide  The left boundary for the paddle.
+     * @param rightSide The right boundary for the paddle.
+     */
+    void createPaddle(Point upperLeft, double width, double height, double speed, int leftSide, int rightSide) {
+        this.paddle = new Paddle(upperLeft, width, height, leftSide, rightSide, this.keyboard);
+        paddle.setSpeed(speed * baseTickRate / tickRate);
+        paddle.addToGame(this);
+    }
+
+    /**
+     * Prepares the game for the balls of a level file. Called by LevelLoader before the first ball.
+     *
+     * @param count The number of balls.
+     */
+    void reserveBalls(int count) {
+        this.ballCount = count;
+        createBallSystem();
+    }
+
+    /**
+     * Launches a ball of a level file. Called by LevelLoader and the built-in layout.
+     *
+     * @param x     The x-coordinate of the ball's center.
+     * @param y     The y-coordinate of the ball's center.
+     * @param r     The radius of the ball.
+     * @param angle The launch angle, in radians.
+     * @param speed The distance the ball moves per tick at the base tick rate.
+     * @param color The color of the ball.
+     */
+    void addLevelBall(double x, double y, int r, double angle, double speed, Color color) {
+        launchBall(x, y, r, angle, speed, color);
+    }
+
+    /**
+     * Initializes the game by setting up frames, lines of blocks, paddle, and balls, or by loading them from
+     * the level file given to setLevel. The collision index is then chosen for the blocks; see
+     * GameEnvironment.chooseBroadphase.
+     *
+     * @throws IllegalStateException If a game with a level file is being recorded, as recordings only
+     *                               replay the built-in layout.
+     * @throws UncheckedIOException  If the level file cannot be read.
      */
     public void initialize() {
-        setFrames();
-        createBlocks();
-        createPaddle();
-        setBalls();
+        if (recorder != null) {
+            if (levelFile != null) {
+                throw new IllegalStateException("A game with a level file cannot be recorded.");
+            }
+            recorder.start(random != null, seed, tickRate, ballCount, multiball, collisionMode);
+        }
+        if (levelFile != null) {
+            try {
+                LevelLoader.load(levelFile, this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            setFrames();
+            createBlocks();
+            createPaddle();
+            setBalls();
+        }
+        environment.chooseBroadphase();
         updateCounters();
         createScoreBoard();
     }
 
     /**
      * Runs the game loop, handling animation and updates.
+     * The simulation advances in fixed ticks of 1 / tickRate seconds, measured with System.nanoTime():
+     * the time of every frame is added to an accumulator, and as many whole ticks as it holds are run
+     * before drawing. Moving sprites are then drawn interpolated by the fraction of a tick left over, so the
+     * simulation speed does not depend on how fast frames are drawn.
+     * Each frame is drawn by render(RenderBackend, double) with the backend set by setRenderBackend, or, with
+     * a render thread, published to it and drawn there while the simulation goes on.
+     *
+     * @throws IllegalStateException If the game was created headless.
      */
     public void run() {
+        if (gui == null) {
+            throw new IllegalStateException("A headless game has no window to run in.");
+        }
+        scoreIndicator.setFrameStats(frameStats);
         Sleeper sleeper = new Sleeper();
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
+        long tickNanos = 1_000_000_000L / tickRate;
+        long frameNanos = 1_000_000_000L / framesPerSecond;
+        long accumulator = 0;
+        long previousTime = System.nanoTime();
+        long nextFrameTime = previousTime + frameNanos;
+        RenderBackend backend = renderBackend != null ? renderBackend : new BiuoopBackend(gui);
+        TripleBuffer<FrameState> published = null;
+        RenderThread renderer = null;
+        if (renderThread) {
+            published = new TripleBuffer<>(new FrameState(screenWidth, screenHeight),
+                    new FrameState(screenWidth, screenHeight), new FrameState(screenWidth, screenHeight));
+            renderer = new RenderThread(published, backend, screen, screenWidth, screenHeight);
+            renderer.start();
+            scoreIndicator.setReleased(published::isNewestAcquired);
+        }
+
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long frameTime = Math.min(now - previousTime, maxFrameNanos);
+                previousTime = now;
+                accumulator += frameTime;
+
+                int ticks = 0;
+                while (accumulator >= tickNanos && !isOver()) {
+                    tick();
+                    accumulator -= tickNanos;
+                    ticks++;
+                }
+                if (isOver()) {
+                    finish();
+                    break;
+                }
+
+                if (published != null) {
+                    publish(published, (double) accumulator / tickNanos);
+                } else {
+                    render(backend, (double) accumulator / tickNanos);
+                }
+                frameStats.recordFrame(frameTime, ticks);
 
-        while (true) {
-            if (ballCounter.getValue() <= 0 || blockCounter.getValue() <= 0) {
-                if (blockCounter.getValue() <= 0) {
-                    this.scoreCounter.increase(100);
+                // Sleep until the next frame is due; deadlines advance by whole frames so pacing does not drift
+                long sleepNanos = nextFrameTime - System.nanoTime();
+                if (sleepNanos > 0) {
+                    sleeper.sleepFor(sleepNanos / 1_000_000);
+                    nextFrameTime += frameNanos;
+                } else {
+                    nextFrameTime = System.nanoTime() + frameNanos;
                 }
-                gui.close();
             }
-            long startTime = System.currentTimeMillis(); // timing
-            DrawSurface d = gui.getDrawSurface();
-            this.screen.drawOn(d);
-            this.sprites.notifyAllTimePassed();
-            this.sprites.drawAllOn(d);
-            gui.show(d);
-
-            // timing
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+        } finally {
+            if (renderer != null) {
+                stopRenderThread(renderer);
+                scoreIndicator.setReleased(null);
+            }
+            close();
+        }
+        gui.close();
+    }
+
+    /**
+     * Releases the threads of the physics step: the pool the game created for setPhysicsThreads is shut down,
+     * while a pool given to setPhysicsPool is left to its owner. The game can still be ticked afterwards, with
+     * the physics on the calling thread. run() closes the game when it ends; a headless game with physics
+     * threads should be closed once it is no longer ticked. Closing again has no effect.
+     */
+    @Override
+    public void close() {
+        if (ballSystem != null) {
+            ballSystem.setParallelism(null);
+        }
+        if (ownsPhysicsPool) {
+            physicsPool.shutdown();
+            ownsPhysicsPool = false;
+        }
+        physicsPool = null;
+    }
+
+    /**
+     * Draws the current state of the game as one frame: the sprites draw into a DrawCommandList, which the
+     * backend then renders. The background and the blocks are cached in a BlockLayer, so they take a single
+     * image command and only the moving sprites and the score are drawn one by one. Works headless too, so
+     * rendering can be measured apart from the simulation.
+     *
+     * @param backend The backend to render the frame with.
+     * @param alpha   How far between the previous and the current tick to draw the moving sprites.
+     */
+    public void render(RenderBackend backend, double alpha) {
+        createBlockLayer();
+        frame.clear();
+        blockLayer.drawOn(frame);
+        this.sprites.drawAllOn(frame, alpha, blockLayer);
+        backend.render(frame);
+    }
+
+    /**
+     * Fills the back slot of the buffer with the current frame and publishes it to the render thread. Only the
+     * moving sprites and the score are recorded; the blocks go as an array, copied only when they change.
+     *
+     * @param published The buffer shared with the render thread.
+     * @param alpha     How far between the previous and the current tick to draw the moving sprites.
+     */
+    private void publish(TripleBuffer<FrameState> published, double alpha) {
+        createBlockLayer();
+        if (liveBlocksVersion != blockLayer.getVersion()) {
+            this.liveBlocks = blockLayer.getBlocks();
+            this.liveBlocksVersion = blockLayer.getVersion();
+        }
+        FrameState f = published.back();
+        f.getCommands().clear();
+        this.sprites.drawAllOn(f.getCommands(), alpha, blockLayer);
+        f.setBlocks(liveBlocks, liveBlocksVersion);
+        published.publish();
+    }
+
+    /**
+     * Stops the render thread and waits for it to finish its frame.
+     *
+     * @param renderer The render thread.
+     */
+    private static void stopRenderThread(RenderThread renderer) {
+        try {
+            renderer.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates the block layer on first use, holding the blocks already in the game.
+     */
+    private void createBlockLayer() {
+        if (blockLayer != null) {
+            return;
+        }
+        this.blockLayer = new BlockLayer(screen, screenWidth, screenHeight);
+        for (Sprite s : sprites.getSprites()) {
+            if (s instanceof Block) {
+                blockLayer.add((Block) s);
+            }
+        }
+    }
+
+    /**
+     * Runs the game without drawing or frame pacing, as fast as possible, until it is over or the
+     * given number of ticks has been simulated.
+     *
+     * @param maxTicks The maximum number of ticks to simulate.
+     * @return The number of ticks simulated, the time they took and the final counter values.
+     */
+    public SimulationStats runHeadless(long maxTicks) {
+        return runHeadless(maxTicks, null);
+    }
+
+    /**
+     * Runs the game without drawing or frame pacing, as fast as possible, until it is over or the
+     * given number of ticks has been simulated. The controller is consulted before every tick.
+     *
+     * @param maxTicks   The maximum number of ticks to simulate.
+     * @param controller The controller driving the paddle, or null to leave the keyboard as it is.
+     * @return The number of ticks simulated, the time they took and the final counter values.
+     */
+    public SimulationStats runHeadless(long maxTicks, PaddleController controller) {
+        long ticks = 0;
+        long startTime = System.nanoTime();
+        while (ticks < maxTicks && !isOver()) {
+            if (controller != null) {
+                controller.beforeTick(this, ticks);
+            }
+            tick();
+            ticks++;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        finishIfOver();
+        return new SimulationStats(ticks, elapsed, scoreCounter.getValue(), ballCounter.getValue(),
+                blockCounter.getValue());
+    }
+
+    /**
+     * Returns the paddle of this game.
+     *
+     * @return The paddle, or null before the game is initialized.
+     */
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    /**
+     * Returns the balls launched in this game, including those that were already removed.
+     * In multiball mode the balls are in the ball system instead, and this list is empty.
+     *
+     * @return The list of balls.
+     */
+    public ArrayList<Ball> getBalls() {
+        return this.balls;
+    }
+
+    /**
+     * Returns the ball system holding the balls in multiball mode.
+     *
+     * @return The ball system, or null when not in multiball mode or before the game is initialized.
+     */
+    public BallSystem getBallSystem() {
+        return this.ballSystem;
+    }
+
+    /**
+     * Returns the current score.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return this.scoreCounter.getValue();
+    }
+
+    /**
+     * Returns the number of balls still in play.
+     *
+     * @return The remaining ball count.
+     */
+    public int getRemainingBalls() {
+        return this.ballCounter.getValue();
+    }
+
+    /**
+     * Returns the number of breakable blocks still in play.
+     *
+     * @return The remaining block count.
+     */
+    public int getRemainingBlocks() {
+        return this.blockCounter.getValue();
+    }
+
+    /**
+     * Advances the simulation by a single frame, without drawing. The hits of the frame are dispatched to the
+     * listeners once every sprite has moved.
+     */
+    public void tick() {
+        if (recorder != null) {
+            recorder.recordTick();
+        }
+        hitEvents.setTick(tickCount);
+        this.sprites.notifyAllTimePassed();
+        hitEvents.dispatch();
+        tickCount++;
+        if (snapshots != null && tickCount % snapshotInterval == 0
+                && (snapshots.size() == 0 || snapshots.newest().getTick() < tickCount)) {
+            snapshots.add(snapshot());
+        }
+    }
+
+    /**
+     * Returns the number of ticks simulated since the game was initialized.
+     *
+     * @return The tick count.
+     */
+    public long getTicks() {
+        return this.tickCount;
+    }
+
+    /**
+     * Takes a snapshot of the world: the balls in play, the blocks left, the paddle and the counters.
+     *
+     * @return The snapshot.
+     * @throws IllegalStateException If the game was not initialized.
+     */
+    public WorldSnapshot snapshot() {
+        if (this.paddle == null) {
+            throw new IllegalStateException("The game must be initialized before it is snapshotted.");
+        }
+        Set<Sprite> inPlay = new HashSet<>(sprites.getSprites());
+        boolean[] blocks = new boolean[obstacles.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = inPlay.contains(obstacles.get(i));
+        }
+
+        int n;
+        if (multiball) {
+            n = ballSystem.size();
+        } else {
+            n = 0;
+            for (Ball b : balls) {
+                if (inPlay.contains(b)) {
+                    n++;
+                }
+            }
+        }
+        int[] index = new int[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+        int[] r = new int[n];
+        int[] color = new int[n];
+        if (multiball) {
+            for (int i = 0; i < n; i++) {
+                Velocity v = ballSystem.getVelocity(i);
+                index[i] = i;
+                x[i] = ballSystem.getX(i);
+                y[i] = ballSystem.getY(i);
+                dx[i] = v.getDx();
+                dy[i] = v.getDy();
+                r[i] = ballSystem.getRadius(i);
+                color[i] = ballSystem.getColor(i).getRGB();
+            }
+        } else {
+            int k = 0;
+            for (int i = 0; i < balls.size(); i++) {
+                Ball b = balls.get(i);
+                if (!inPlay.contains(b)) {
+                    continue;
+                }
+                index[k] = i;
+                x[k] = b.getCenterX();
+                y[k] = b.getCenterY();
+                dx[k] = b.getVelocity().getDx();
+                dy[k] = b.getVelocity().getDy();
+                r[k] = b.getSize();
+                color[k] = b.getColor().getRGB();
+                k++;
+            }
+        }
+        Point corner = paddle.getCollisionRectangle().getUpperLeft();
+        return new WorldSnapshot(tickCount, multiball, finished, corner.getX(), corner.getY(), blocks, index,
+                x, y, dx, dy, r, color, blockCounter.getValue(), ballCounter.getValue(), scoreCounter.getValue());
+    }
+
+    /**
+     * Puts the game back into the state of a snapshot, so it continues exactly as it did from the snapshot's
+     * tick. The sprites and collidables are rebuilt in the order they were created, the same blocks and paddle
+     * are put back, and new balls take the place, and the hit event ids, of those in play. Sprites added from
+     * outside the game are dropped. Snapshots taken after the snapshot's tick are kept; see
+     * SnapshotBuffer.discardAfter.
+     *
+     * @param s The snapshot to restore, taken from a game with the same settings.
+     * @throws IllegalStateException    If the game was not initialized or is being recorded.
+     * @throws IllegalArgumentException If the snapshot was taken from a game with another layout or ball storage.
+     */
+    public void restore(WorldSnapshot s) {
+        if (this.paddle == null) {
+            throw new IllegalStateException("The game must be initialized before it is restored.");
+        }
+        if (this.recorder != null) {
+            throw new IllegalStateException("A recorded game cannot be restored.");
+        }
+        if (s.getBlockCount() != obstacles.size() || s.isMultiball() != multiball) {
+            throw new IllegalArgumentException("The snapshot was taken from a game with other settings.");
+        }
+        for (Collidable c : new ArrayList<>(environment.getCollidables())) {
+            environment.removeCollidable(c);
+        }
+        this.sprites = new SpriteCollection();
+        if (blockLayer != null) {
+            blockLayer.clear();
+        }
+
+        for (Block f : frames) {
+            f.addToGame(this);
+        }
+        for (int i = 0; i < obstacles.size(); i++) {
+            Block b = obstacles.get(i);
+            if (s.isBlockInPlay(i)) {
+                b.addToGame(this);
+            } else if (b.isInGame()) {
+                b.removeFromGame(this);
+            }
+        }
+        paddle.moveTo(s.getPaddleX(), s.getPaddleY());
+        paddle.addToGame(this);
+
+        if (multiball) {
+            ballSystem.clear();
+            for (int i = 0; i < s.getBallCount(); i++) {
+                ballSystem.addBall(s.getBallX(i), s.getBallY(i), s.getBallRadius(i),
+                        new Velocity(s.getBallDx(i), s.getBallDy(i)), s.getBallColor(i));
+            }
+            ballSystem.addToGame(this);
+        } else {
+            for (int i = 0; i < s.getBallCount(); i++) {
+                Ball b = new Ball(s.getBallX(i), s.getBallY(i), s.getBallRadius(i), this.environment,
+                        s.getBallColor(i));
+                b.setVelocity(s.getBallDx(i), s.getBallDy(i));
+                b.setCollisionMode(collisionMode);
+                // The new ball takes the old one's id on the hit event bus, so seeking does not grow the bus
+                b.addToGame(this, balls.get(s.getBallIndex(i)));
+                balls.set(s.getBallIndex(i), b);
+            }
+        }
+        scoreIndicator.addToGame(this);
+
+        blockCounter.increase(s.getRemainingBlocks() - blockCounter.getValue());
+        ballCounter.increase(s.getRemainingBalls() - ballCounter.getValue());
+        scoreCounter.increase(s.getScore() - scoreCounter.getValue());
+        this.finished = s.isFinished();
+        this.tickCount = s.getTick();
+    }
+
+    /**
+     * Returns whether the game is over, i.e. all balls or all breakable blocks are gone.
+     *
+     * @return True if the game is over, false otherwise.
+     */
+    public boolean isOver() {
+        return ballCounter.getValue() <= 0 || blockCounter.getValue() <= 0;
+    }
+
+    /**
+     * Applies the end-of-game score if the game is over, as run() and runHeadless do when they stop. Called by
+     * ReplayPlayer when a replayed game ends.
+     */
+    void finishIfOver() {
+        if (isOver()) {
+            finish();
+        }
+    }
+
+    /**
+     * Applies the end-of-game score, once: clearing all blocks is worth 100 points. Ends the recording, if any.
+     */
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (blockCounter.getValue() <= 0) {
+            this.scoreCounter.increase(100);
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
@@ -280,6 +1253,16 @@ public class Game {
         this.environment.removeCollidable(c);
     }
 
+    /**
+     * Updates a static collidable in the game environment after its collision rectangle has moved. Dynamic
+     * collidables, added with addDynamicCollidable, need no update.
+     *
+     * @param c The collidable that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        this.environment.updateCollidable(c);
+    }
+
     /**
      * Removes a sprite from the game.
      *
@@ -287,7 +1270,34 @@ public class Game {
      */
     public void removeSprite(Sprite s) {
         this.sprites.removeSprite(s);
+        if (blockLayer != null && s instanceof Block) {
+            blockLayer.remove((Block) s);
+        }
     }
-}
 
+    /**
+     * The Builder class puts the parts of a level built by the layout methods into play in this game.
+     */
+    private final class Builder implements LevelBuilder {
+        @Override
+        public void addBlock(double x, double y, double width, double height, Color color, int points,
+                             boolean breakable, boolean deathRegion) {
+            Block b = new Block(new Point(x, y), width, height, color);
+            b.setPoints(points);
+            b.setBreakable(breakable);
+            b.setDeathRegion(deathRegion);
+            addLevelBlock(b);
+        }
+
+        @Override
+        public void setPaddle(double x, double y, double width, double height, double speed, int left,
+                              int right) {
+            createPaddle(new Point(x, y), width, height, speed, left, right);
+        }
 
+        @Override
+        public void addBall(double x, double y, int r, double angle, double speed, Color color) {
+            launchBall(x, y, r, angle, speed, color);
+        }
+    }
+}
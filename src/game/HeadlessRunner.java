@@ -0,0 +1,23 @@
+
+package game;
+
+/**
+ * The HeadlessRunner class runs a single game without a window and prints how fast it was simulated.
+ * It is meant for server nodes, where there is no display to open the game window on.
+ */
+public class HeadlessRunner {
+    private static final long DEFAULT_MAX_TICKS = 1_000_000; // A game whose balls never fall out never ends
+
+    /**
+     * Runs one headless game with no keys pressed.
+     *
+     * @param args optional maximum number of ticks to simulate
+     */
+    public static void main(String[] args) {
+        long maxTicks = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_MAX_TICKS;
+        Game game = new Game(new ScriptedKeyboardSensor());
+        game.initialize();
+        SimulationStats stats = game.runHeadless(maxTicks);
+        System.out.println(stats);
+    }
+}
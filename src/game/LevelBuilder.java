@@ -0,0 +1,50 @@
+package game;
+
+import java.awt.Color;
+
+/**
+ * The LevelBuilder interface receives the blocks, paddle and balls of a level as they are built. A Game puts
+ * them into play and a LevelWriter writes them to a level file; Game.buildLayout builds the built-in layout
+ * into either.
+ */
+public interface LevelBuilder {
+    /**
+     * Adds a block to the level.
+     *
+     * @param x           the x-coordinate of the upper-left point of the block
+     * @param y           the y-coordinate of the upper-left point of the block
+     * @param width       the width of the block
+     * @param height      the height of the block
+     * @param color       the color of the block
+     * @param points      the points scored for breaking the block
+     * @param breakable   whether balls break the block; the others bounce balls like the frame
+     * @param deathRegion whether the block removes the balls that hit it
+     */
+    void addBlock(double x, double y, double width, double height, Color color, int points,
+                  boolean breakable, boolean deathRegion);
+
+    /**
+     * Sets the paddle of the level.
+     *
+     * @param x      the x-coordinate of the upper-left point of the paddle
+     * @param y      the y-coordinate of the upper-left point of the paddle
+     * @param width  the width of the paddle
+     * @param height the height of the paddle
+     * @param speed  the distance the paddle moves per tick at 60 ticks per second
+     * @param left   the left boundary for the paddle
+     * @param right  the right boundary for the paddle
+     */
+    void setPaddle(double x, double y, double width, double height, double speed, int left, int right);
+
+    /**
+     * Adds a ball to the level, launched when the game is initialized.
+     *
+     * @param x      the x-coordinate of the ball's center
+     * @param y      the y-coordinate of the ball's center
+     * @param radius the radius of the ball
+     * @param angle  the launch angle, in radians
+     * @param speed  the distance the ball moves per tick at 60 ticks per second
+     * @param color  the color of the ball
+     */
+    void addBall(double x, double y, int radius, double angle, double speed, Color color);
+}
@@ -0,0 +1,94 @@
+package game;
+
+import entities.Block;
+import geometry.Point;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelLoader class loads a level file written by a LevelWriter into a game. The file is memory-mapped
+ * rather than read through a stream, and every block is built and added to the game, and so to the collision
+ * index, as soon as its record is decoded, in a single pass over the file. The header gives the number of
+ * blocks and their bounds first, so the grid is sized once instead of growing as blocks arrive.
+ */
+final class LevelLoader {
+    /**
+     * Not instantiable.
+     */
+    private LevelLoader() {
+    }
+
+    /**
+     * Loads the blocks, paddle and balls of a level file into a game being initialized.
+     *
+     * @param file the level file
+     * @param game the game to load the level into
+     * @throws IOException if the file cannot be read or is not a level
+     */
+    static void load(Path file, Game game) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < LevelWriter.HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a level file: " + file + ".");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (in.getInt() != LevelWriter.MAGIC) {
+                throw new IOException("Not a level file: " + file + ".");
+            }
+            int version = in.getShort() & 0xFFFF;
+            if (version != LevelWriter.VERSION) {
+                throw new IOException("Unsupported level version " + version + ".");
+            }
+            int blockCount = in.getInt();
+            int ballCount = in.getInt();
+            if (blockCount < 0 || ballCount < 0 || size != LevelWriter.HEADER_BYTES
+                    + (long) blockCount * LevelWriter.BLOCK_BYTES + (long) ballCount * LevelWriter.BALL_BYTES) {
+                throw new IOException("Truncated or corrupt level file: " + file + ".");
+            }
+            double minX = in.getDouble();
+            double minY = in.getDouble();
+            double maxX = in.getDouble();
+            double maxY = in.getDouble();
+            double paddleX = in.getDouble();
+            double paddleY = in.getDouble();
+            double paddleWidth = in.getDouble();
+            double paddleHeight = in.getDouble();
+            double paddleSpeed = in.getDouble();
+            int leftSide = in.getInt();
+            int rightSide = in.getInt();
+
+            game.reserveBlocks(blockCount, minX, minY, maxX, maxY);
+            for (int i = 0; i < blockCount; i++) {
+                double x = in.getFloat();
+                double y = in.getFloat();
+                double width = in.getFloat();
+                double height = in.getFloat();
+                Color color = new Color(in.getInt(), true);
+                int points = in.getInt();
+                int flags = in.get();
+                Block b = new Block(new Point(x, y), width, height, color);
+                b.setPoints(points);
+                b.setBreakable((flags & LevelWriter.BREAKABLE) != 0);
+                b.setDeathRegion((flags & LevelWriter.DEATH_REGION) != 0);
+                game.addLevelBlock(b);
+            }
+            game.createPaddle(new Point(paddleX, paddleY), paddleWidth, paddleHeight, paddleSpeed, leftSide,
+                    rightSide);
+            game.reserveBalls(ballCount);
+            for (int i = 0; i < ballCount; i++) {
+                double x = in.getDouble();
+                double y = in.getDouble();
+                double angle = in.getDouble();
+                double speed = in.getDouble();
+                int radius = in.getInt();
+                Color color = new Color(in.getInt(), true);
+                game.addLevelBall(x, y, radius, angle, speed, color);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package game;
+
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The LevelWriter class writes a level, its blocks, paddle and balls, into the compact binary file a
+ * LevelLoader reads with Game.setLevel. Blocks and balls are collected as they are added, and the file is
+ * written when the writer is closed, since its header gives their counts. Game.buildLayout writes the built-in
+ * layout.
+ * <p>
+ * The file is big-endian and has fixed-size records, so it is read straight from a memory mapping. The header
+ * holds the counts, the bounds of the blocks and the paddle; then come the blocks, as float coordinates, an
+ * ARGB color, their points and flags; then the balls, with their launch angle and speed. Block coordinates
+ * are stored as floats, which is exact for whole numbers up to 16,777,216.
+ * </p>
+ */
+public class LevelWriter implements LevelBuilder, Closeable {
+    static final int MAGIC = 0x41524B4C; // "ARKL"
+    static final int VERSION = 1;
+    static final int BREAKABLE = 1;      // Flag bit of a block balls break
+    static final int DEATH_REGION = 2;   // Flag bit of a block that removes the balls hitting it
+    static final int HEADER_BYTES = 94;
+    static final int BLOCK_BYTES = 25;
+    static final int BALL_BYTES = 40;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+    private final DataOutputStream blocks = new DataOutputStream(blockBytes);
+    private final ByteArrayOutputStream ballBytes = new ByteArrayOutputStream();
+    private final DataOutputStream balls = new DataOutputStream(ballBytes);
+    private int blockCount;
+    private int ballCount;
+    private double minX = Double.POSITIVE_INFINITY; // Bounds of the blocks added so far
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+    private double[] paddle;   // x, y, width, height and speed of the paddle, null until set
+    private int leftSide;
+    private int rightSide;
+    private boolean closed;
+
+    /**
+     * Constructs a new LevelWriter writing to the given stream.
+     *
+     * @param out the stream the level is written to; it is closed when the writer is closed
+     */
+    public LevelWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Sets the paddle of the level.
+     *
+     * @param x      the x-coordinate of the upper-left point of the paddle
+     * @param y      the y-coordinate of the upper-left point of the paddle
+     * @param width  the width of the paddle
+     * @param height the height of the paddle
+     * @param speed  the distance the paddle moves per tick at 60 ticks per second
+     * @param left   the left boundary for the paddle
+     * @param right  the right boundary for the paddle
+     */
+    @Override
+    public void setPaddle(double x, double y, double width, double height, double speed, int left, int right) {
+        this.paddle = new double[] {x, y, width, height, speed};
+        this.leftSide = left;
+        this.rightSide = right;
+    }
+
+    /**
+     * Adds a block to the level. Blocks are added to the game in the order they are written.
+     *
+     * @param x           the x-coordinate of the upper-left point of the block
+     * @param y           the y-coordinate of the upper-left point of the block
+     * @param width       the width of the block
+     * @param height      the height of the block
+     * @param color       the color of the block
+     * @param points      the points scored for breaking the block
+     * @param breakable   whether balls break the block; the others bounce balls like the frame
+     * @param deathRegion whether the block removes the balls that hit it
+     */
+    @Override
+    public void addBlock(double x, double y, double width, double height, Color color, int points,
+                         boolean breakable, boolean deathRegion) {
+        Rectangle rect = new Rectangle(new Point(x, y), width, height);
+        minX = Math.min(minX, Math.min(rect.getLeftBottom().getX(), rect.getRightUp().getX()));
+        maxX = Math.max(maxX, Math.max(rect.getLeftBottom().getX(), rect.getRightUp().getX()));
+        minY = Math.min(minY, Math.min(rect.getLeftBottom().getY(), rect.getRightUp().getY()));
+        maxY = Math.max(maxY, Math.max(rect.getLeftBottom().getY(), rect.getRightUp().getY()));
+        try {
+            blocks.writeFloat((float) x);
+            blocks.writeFloat((float) y);
+            blocks.writeFloat((float) width);
+            blocks.writeFloat((float) height);
+            blocks.writeInt(color.getRGB());
+            blocks.writeInt(points);
+            blocks.writeByte((breakable ? BREAKABLE : 0) | (deathRegion ? DEATH_REGION : 0));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown, the records are buffered in memory
+        }
+        blockCount++;
+    }
+
+    /**
+     * Adds a ball to the level, launched when the game is initialized.
+     *
+     * @param x      the x-coordinate of the ball's center
+     * @param y      the y-coordinate of the ball's center
+     * @param radius the radius of the ball
+     * @param angle  the launch angle, in radians
+     * @param speed  the distance the ball moves per tick at 60 ticks per second
+     * @param color  the color of the ball
+     */
+    @Override
+    public void addBall(double x, double y, int radius, double angle, double speed, Color color) {
+        try {
+            balls.writeDouble(x);
+            balls.writeDouble(y);
+            balls.writeDouble(angle);
+            balls.writeDouble(speed);
+            balls.writeInt(radius);
+            balls.writeInt(color.getRGB());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown, the records are buffered in memory
+        }
+        ballCount++;
+    }
+
+    /**
+     * Writes the level and closes the stream. Closing again has no effect.
+     *
+     * @throws IOException           if the level cannot be written
+     * @throws IllegalStateException if no paddle was set
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (paddle == null) {
+            throw new IllegalStateException("A level needs a paddle.");
+        }
+        closed = true;
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(blockCount);
+            out.writeInt(ballCount);
+            out.writeDouble(blockCount == 0 ? 0 : minX);
+            out.writeDouble(blockCount == 0 ? 0 : minY);
+            out.writeDouble(blockCount == 0 ? 0 : maxX);
+            out.writeDouble(blockCount == 0 ? 0 : maxY);
+            for (double v : paddle) {
+                out.writeDouble(v);
+            }
+            out.writeInt(leftSide);
+            out.writeInt(rightSide);
+            blockBytes.writeTo(out);
+            ballBytes.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the built-in layout, or a stress level tiling it over several screens, to a level file.
+     *
+     * @param args the level file, and optionally the number of screens across and down
+     * @throws IOException if the level cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.out.println("Usage: java game.LevelWriter <level> [columns rows]");
+            return;
+        }
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int rows = args.length > 1 ? Integer.parseInt(args[2]) : 1;
+        LevelWriter w = new LevelWriter(new FileOutputStream(args[0]));
+        new Game(new ScriptedKeyboardSensor()).buildLayout(w, columns, rows);
+        w.close();
+        System.out.println("Wrote " + w.blockCount + " blocks and " + w.ballCount + " balls to " + args[0]);
+    }
+}
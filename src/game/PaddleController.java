@@ -0,0 +1,17 @@
+
+package game;
+
+/**
+ * The PaddleController interface is implemented by code that plays the game instead of a person,
+ * such as a paddle AI in a headless batch run. It is consulted once before every tick and usually
+ * presses or releases keys on a ScriptedKeyboardSensor.
+ */
+public interface PaddleController {
+    /**
+     * Called before each tick of a headless game.
+     *
+     * @param game The game being played.
+     * @param tick The number of ticks simulated so far.
+     */
+    void beforeTick(Game game, long tick);
+}
@@ -0,0 +1,211 @@
+package game;
+
+import entities.Block;
+import geometry.Point;
+import geometry.Rectangle;
+import render.DrawCommandList;
+import render.GraphicsCanvas;
+import ui.BlockLayer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The RenderCheck class checks that drawing blocks in batches, sorted by kind and color, leaves every pixel as
+ * drawing them one after the other. Each level is drawn block by block, recorded into a DrawCommandList in
+ * one batch and played back, and drawn through a BlockLayer, in full and again after a
+ * third of the blocks were removed; the images are then compared pixel by pixel. The levels are the built-in
+ * layout, whose frame blocks overlap at the corners, the layout tiled over 2 x 2 screens, and random blocks
+ * that partly overlap each other.
+ * <p>
+ * Run with {@code java -Djava.awt.headless=true -cp src game.RenderCheck}; it prints the differing pixels and
+ * the color changes of every level, and exits with status 1 if any pixel differs. {@code gradle check} runs it.
+ * </p>
+ */
+public class RenderCheck {
+    private static final Color BACKGROUND = Color.blue.darker();
+
+    /**
+     * The Level class collects the blocks of a layout built by Game.buildLayout.
+     */
+    private static final class Level implements LevelBuilder {
+        private final List<Block> blocks = new ArrayList<>();
+
+        @Override
+        public void addBlock(double x, double y, double width, double height, Color color, int points,
+                             boolean breakable, boolean deathRegion) {
+            blocks.add(new Block(new Point(x, y), width, height, color));
+        }
+
+        @Override
+        public void setPaddle(double x, double y, double width, double height, double speed, int left,
+                              int right) {
+        }
+
+        @Override
+        public void addBall(double x, double y, int radius, double angle, double speed, Color color) {
+        }
+    }
+
+    /**
+     * Checks every level.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        boolean same = check("built-in layout", layout(1, 1));
+        same &= check("2x2 layout", layout(2, 2));
+        same &= check("random blocks", randomBlocks(400, 1));
+        if (!same) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Builds the blocks of the built-in layout.
+     *
+     * @param columns the number of screens across
+     * @param rows    the number of screens down
+     * @return the blocks, in the order the game adds them
+     */
+    private static List<Block> layout(int columns, int rows) {
+        Level level = new Level();
+        new Game(new ScriptedKeyboardSensor()).buildLayout(level, columns, rows);
+        return level.blocks;
+    }
+
+    /**
+     * Builds random blocks of a few colors, many of which overlap.
+     *
+     * @param count the number of blocks
+     * @param seed  the random seed
+     * @return the blocks
+     */
+    private static List<Block> randomBlocks(int count, long seed) {
+        Random rand = new Random(seed);
+        Game.Colors[] colors = Game.Colors.values();
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Mostly on a grid of 50 x 25, so many blocks share an edge like those of a level
+            double x = rand.nextInt(16) * 50 + (rand.nextInt(4) == 0 ? rand.nextInt(50) : 0);
+            double y = 25 + rand.nextInt(24) * 25 + (rand.nextInt(4) == 0 ? rand.nextInt(25) : 0);
+            blocks.add(new Block(new Point(x, y), 50, 25, colors[rand.nextInt(colors.length)].getColor()));
+        }
+        return blocks;
+    }
+
+    /**
+     * Draws a level in every way and compares the images.
+     *
+     * @param name   the name of the level, printed
+     * @param blocks the blocks of the level
+     * @return true if every image is the same as the one drawn block by block
+     */
+    private static boolean check(String name, List<Block> blocks) {
+        java.awt.Rectangle bounds = new java.awt.Rectangle(0, 0, 1, 1);
+        for (Block b : blocks) {
+            bounds.add(b.getCollisionRectangle().getPixelBounds());
+        }
+        int width = bounds.x + bounds.width;
+        int height = bounds.y + bounds.height;
+        Rectangle background = new Rectangle(new Point(0, height), width, height, BACKGROUND);
+
+        DrawCommandList unbatched = new DrawCommandList(width, height);
+        background.drawOn(unbatched);
+        for (Block b : blocks) {
+            b.drawOn(unbatched);
+        }
+        BufferedImage direct = image(width, height);
+        unbatched.replay(canvas(direct));
+
+        DrawCommandList list = new DrawCommandList(width, height);
+        background.drawOn(list);
+        list.beginBatch();
+        for (Block b : blocks) {
+            b.drawOn(list);
+        }
+        list.endBatch();
+        BufferedImage batched = image(width, height);
+        list.replay(canvas(batched));
+
+        BlockLayer layer = new BlockLayer(background, width, height);
+        for (Block b : blocks) {
+            layer.add(b);
+        }
+        BufferedImage layered = image(width, height);
+        layer.drawOn(canvas(layered));
+
+        // Remove a third of the blocks, so the layer repaints only their regions
+        List<Block> left = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (i % 3 == 1) {
+                layer.remove(blocks.get(i));
+            } else {
+                left.add(blocks.get(i));
+            }
+        }
+        BufferedImage directAfter = image(width, height);
+        GraphicsCanvas directCanvas = canvas(directAfter);
+        background.drawOn(directCanvas);
+        for (Block b : left) {
+            b.drawOn(directCanvas);
+        }
+        BufferedImage layeredAfter = image(width, height);
+        layer.drawOn(canvas(layeredAfter));
+
+        int batchedDiff = differences(direct, batched);
+        int layeredDiff = differences(direct, layered);
+        int removedDiff = differences(directAfter, layeredAfter);
+        System.out.println(String.format("%-16s %5d blocks, color changes %5d batched, %5d one by one; "
+                        + "differing pixels: batch %d, layer %d, layer after removals %d", name, blocks.size(),
+                list.colorChanges(), unbatched.colorChanges(), batchedDiff, layeredDiff, removedDiff));
+        return batchedDiff == 0 && layeredDiff == 0 && removedDiff == 0;
+    }
+
+    /**
+     * Creates an image to draw a level in.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the image
+     */
+    private static BufferedImage image(int width, int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Creates a canvas drawing on an image, with antialiasing off as in Java2DBackend.
+     *
+     * @param image the image
+     * @return the canvas
+     */
+    private static GraphicsCanvas canvas(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        return new GraphicsCanvas(g, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Counts the pixels that differ between two images of the same size.
+     *
+     * @param a the first image
+     * @param b the second image
+     * @return the number of differing pixels
+     */
+    private static int differences(BufferedImage a, BufferedImage b) {
+        int[] pa = a.getRGB(0, 0, a.getWidth(), a.getHeight(), null, 0, a.getWidth());
+        int[] pb = b.getRGB(0, 0, b.getWidth(), b.getHeight(), null, 0, b.getWidth());
+        int count = 0;
+        for (int i = 0; i < pa.length; i++) {
+            if (pa[i] != pb[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,73 @@
+package game;
+
+import geometry.Rectangle;
+import render.DrawCommandList;
+import render.RenderBackend;
+import render.TripleBuffer;
+import ui.BlockLayer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The RenderThread class draws the frames a game publishes from its simulation thread. It takes the newest
+ * FrameState from a TripleBuffer, brings its own BlockLayer up to date with the blocks of the frame, and
+ * renders the layer with the commands of the frame on its backend. However long a frame takes to present,
+ * the simulation thread never waits for it; frames published in the meantime are skipped.
+ */
+final class RenderThread extends Thread {
+    private static final long IDLE_NANOS = 500_000L; // Pause when no new frame was published
+    private final TripleBuffer<FrameState> frames;
+    private final RenderBackend backend;
+    private final BlockLayer layer;
+    private final DrawCommandList output; // The layer followed by the commands of the frame
+    private long blockVersion = -1;       // Version of the blocks the layer holds
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new RenderThread.
+     *
+     * @param frames     the buffer the frames are published to
+     * @param backend    the backend to render with
+     * @param background the rectangle drawn behind the blocks
+     * @param width      the width of the screen in pixels
+     * @param height     the height of the screen in pixels
+     */
+    RenderThread(TripleBuffer<FrameState> frames, RenderBackend backend, Rectangle background, int width,
+                 int height) {
+        super("render");
+        setDaemon(true);
+        this.frames = frames;
+        this.backend = backend;
+        this.layer = new BlockLayer(background, width, height);
+        this.output = new DrawCommandList(width, height);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            FrameState f = frames.acquire();
+            if (f == null) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            if (f.getBlockVersion() != blockVersion) {
+                layer.setBlocks(f.getBlocks());
+                blockVersion = f.getBlockVersion();
+            }
+            output.clear();
+            layer.drawOn(output);
+            f.getCommands().replay(output);
+            backend.render(output);
+        }
+    }
+
+    /**
+     * Asks the thread to stop after the frame it is rendering, and waits for it.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void shutdown() throws InterruptedException {
+        running = false;
+        join();
+    }
+}
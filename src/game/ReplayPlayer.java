@@ -0,0 +1,350 @@
+
+package game;
+
+import biuoop.KeyboardSensor;
+import entities.Ball;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The ReplayPlayer class re-simulates a session recorded by a ReplayRecorder, headless and as fast as
+ * possible. It rebuilds the game from the recorded settings and feeds it the recorded paddle keys tick by tick,
+ * so the replay goes through exactly the states of the original session. It can play to the end and check the
+ * final counters against the recorded ones, or seek to a given tick to inspect the game there.
+ * <p>
+ * With snapshots enabled the game is snapshotted every few ticks while it is replayed, and a seek restores the
+ * nearest snapshot before the target and simulates only the ticks after it, in either direction.
+ * </p>
+ */
+public class ReplayPlayer {
+    private final byte[] data;       // The whole recording
+    private final int bodyStart;     // Offset of the first run of keys in the recording
+    private final ScriptedKeyboardSensor keyboard;
+    private final Game game;
+    private final WorldSnapshot initial; // The state before the first tick
+    private DataInputStream in;
+    private long tick;          // Number of ticks replayed
+    private int runKeys;        // Key bits of the current run
+    private long runRemaining;  // Ticks left in the current run
+    private boolean ended;      // Whether the end of the recorded ticks was reached
+    private long recordedTicks;
+    private int recordedScore;
+    private int recordedBlocks;
+    private int recordedBalls;
+
+    /**
+     * Constructs a new ReplayPlayer, reading the recording into memory and building the game from its settings.
+     *
+     * @param input the stream holding the recording; it is read to the end and closed
+     * @throws IOException if the stream cannot be read or is not a recording
+     */
+    public ReplayPlayer(InputStream input) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+        } finally {
+            input.close();
+        }
+        this.data = buffer.toByteArray();
+        this.in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("Not a game recording.");
+        }
+        int version = in.readUnsignedShort();
+        if (version < 1 || version > ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version + ".");
+        }
+        boolean seeded = in.readBoolean();
+        long seed = in.readLong();
+        int tickRate = in.readInt();
+        int ballCount = in.readInt();
+        boolean multiball = in.readBoolean();
+        Ball.CollisionMode mode = Ball.CollisionMode.POINT;
+        if (version >= 2) {
+            int m = in.readUnsignedByte();
+            if (m >= Ball.CollisionMode.values().length) {
+                throw new IOException("Unknown collision mode " + m + " in recording.");
+            }
+            mode = Ball.CollisionMode.values()[m];
+        }
+
+        this.keyboard = new ScriptedKeyboardSensor();
+        this.game = seeded ? new Game(keyboard, seed) : new Game(keyboard);
+        game.setTickRate(tickRate);
+        game.setBallCount(ballCount);
+        game.setMultiball(multiball);
+        game.setCollisionMode(mode);
+        game.initialize();
+        this.bodyStart = data.length - in.available();
+        this.initial = game.snapshot();
+    }
+
+    /**
+     * Makes the replayed game take a snapshot every given number of ticks, so later seeks only simulate the
+     * ticks after the nearest snapshot. Snapshots are taken as ticks are replayed for the first time.
+     *
+     * @param ticks    the number of ticks between snapshots
+     * @param capacity the number of snapshots kept; the oldest are dropped first
+     */
+    public void setSnapshotInterval(int ticks, int capacity) {
+        game.setSnapshotInterval(ticks, capacity);
+    }
+
+    /**
+     * Returns the game being replayed.
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Returns the number of ticks replayed so far.
+     *
+     * @return the tick count
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns whether every recorded tick has been replayed. The end is reached with the last recorded tick,
+     * which also applies the end-of-game score, so the state at that tick never depends on how it was reached.
+     *
+     * @return true at the end of the recording
+     */
+    public boolean isEnded() {
+        return this.ended;
+    }
+
+    /**
+     * Replays a single tick. After the last recorded tick the end of the recording is read at once.
+     *
+     * @return true if a tick was replayed, false at the end of the recording
+     * @throws IOException if the recording cannot be read
+     */
+    public boolean step() throws IOException {
+        if (ended || !nextRun()) {
+            return false;
+        }
+        setKey(KeyboardSensor.LEFT_KEY, (runKeys & ReplayRecorder.LEFT) != 0);
+        setKey(KeyboardSensor.RIGHT_KEY, (runKeys & ReplayRecorder.RIGHT) != 0);
+        game.tick();
+        runRemaining--;
+        tick++;
+        nextRun();
+        return true;
+    }
+
+    /**
+     * Reads the next run of keys if the current one is used up, or the end of the recording if no run is left.
+     *
+     * @return true if a run with ticks left is current, false at the end of the recording
+     * @throws IOException if the recording cannot be read
+     */
+    private boolean nextRun() throws IOException {
+        while (runRemaining == 0) {
+            int keys = in.readUnsignedByte();
+            if (keys == ReplayRecorder.END_OF_TICKS) {
+                end();
+                return false;
+            }
+            runKeys = keys;
+            runRemaining = readVarLong();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the replay to the given tick, or to the end of the recording if it is shorter. The game jumps to
+     * the nearest snapshot before the target when that saves ticks, or to the start when seeking back with no
+     * snapshot, and is then fast-forwarded to the target. The same target always gives the same state; at the
+     * last recorded tick the game is finished.
+     *
+     * @param target the tick to stop at
+     * @return the tick reached
+     * @throws IOException if the recording cannot be read
+     */
+    public long seek(long target) throws IOException {
+        SnapshotBuffer snapshots = game.getSnapshots();
+        WorldSnapshot nearest = snapshots == null ? null : snapshots.floor(target);
+        if (nearest == null) {
+            nearest = initial;
+        }
+        if (target < tick || nearest.getTick() > tick) {
+            restore(nearest);
+        }
+        while (tick < target && step()) {
+            continue;
+        }
+        return tick;
+    }
+
+    /**
+     * Replays every remaining tick and applies the end-of-game score.
+     *
+     * @return the number of ticks replayed by this call, the time they took and the final counter values
+     * @throws IOException if the recording cannot be read
+     */
+    public SimulationStats playToEnd() throws IOException {
+        long startTick = tick;
+        long startTime = System.nanoTime();
+        while (step()) {
+            continue;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        return new SimulationStats(tick - startTick, elapsed, game.getScore(), game.getRemainingBalls(),
+                game.getRemainingBlocks());
+    }
+
+    /**
+     * Returns whether the replay ended in the same state as the recorded session: the same number of ticks,
+     * score, remaining blocks and remaining balls.
+     *
+     * @return true if the replay matches the recording
+     * @throws IllegalStateException if the end of the recording was not reached yet
+     */
+    public boolean matchesRecording() {
+        if (!ended) {
+            throw new IllegalStateException("The replay has not reached the end of the recording.");
+        }
+        return tick == recordedTicks && game.getScore() == recordedScore
+                && game.getRemainingBlocks() == recordedBlocks && game.getRemainingBalls() == recordedBalls;
+    }
+
+    /**
+     * Returns the final score of the recorded session.
+     *
+     * @return the recorded score
+     * @throws IllegalStateException if the end of the recording was not reached yet
+     */
+    public int getRecordedScore() {
+        if (!ended) {
+            throw new IllegalStateException("The replay has not reached the end of the recording.");
+        }
+        return this.recordedScore;
+    }
+
+    /**
+     * Returns the number of blocks left at the end of the recorded session.
+     *
+     * @return the recorded block count
+     * @throws IllegalStateException if the end of the recording was not reached yet
+     */
+    public int getRecordedBlocks() {
+        if (!ended) {
+            throw new IllegalStateException("The replay has not reached the end of the recording.");
+        }
+        return this.recordedBlocks;
+    }
+
+    /**
+     * Puts the game into the state of a snapshot and moves the recorded keys to the snapshot's tick. The keys
+     * before it are decoded from the start of the recording, which needs no simulation. A snapshot of the last
+     * recorded tick reaches the end of the recording, as replaying that tick does.
+     *
+     * @param s the snapshot to restore
+     * @throws IOException if the recording ends before the snapshot's tick
+     */
+    private void restore(WorldSnapshot s) throws IOException {
+        game.restore(s);
+        in = new DataInputStream(new ByteArrayInputStream(data, bodyStart, data.length - bodyStart));
+        ended = false;
+        runRemaining = 0;
+        long skip = s.getTick();
+        while (skip > 0) {
+            int keys = in.readUnsignedByte();
+            if (keys == ReplayRecorder.END_OF_TICKS) {
+                throw new IOException("The snapshot is past the end of the recording.");
+            }
+            long length = readVarLong();
+            if (length > skip) {
+                runKeys = keys;
+                runRemaining = length - skip;
+            }
+            skip -= Math.min(length, skip);
+        }
+        tick = s.getTick();
+        nextRun();
+    }
+
+    /**
+     * Reads the recorded final state and applies the end-of-game score.
+     *
+     * @throws IOException if the recording cannot be read
+     */
+    private void end() throws IOException {
+        ended = true;
+        recordedTicks = in.readLong();
+        recordedScore = in.readInt();
+        recordedBlocks = in.readInt();
+        recordedBalls = in.readInt();
+        game.finishIfOver();
+    }
+
+    /**
+     * Presses or releases a key on the replay keyboard.
+     *
+     * @param key     the key
+     * @param pressed whether the key is held in the current tick
+     */
+    private void setKey(String key, boolean pressed) {
+        if (pressed) {
+            keyboard.press(key);
+        } else {
+            keyboard.release(key);
+        }
+    }
+
+    /**
+     * Reads a number written seven bits per byte.
+     *
+     * @return the number
+     * @throws IOException if the number cannot be read
+     */
+    private long readVarLong() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed tick count in recording.");
+    }
+
+    /**
+     * Replays a recorded session and prints whether it ended as recorded.
+     *
+     * @param args the recording file, and optionally a tick to stop at instead of playing to the end
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java game.ReplayPlayer <recording> [tick]");
+            return;
+        }
+        ReplayPlayer player = new ReplayPlayer(new FileInputStream(args[0]));
+        if (args.length > 1) {
+            long reached = player.seek(Long.parseLong(args[1]));
+            Game g = player.getGame();
+            System.out.println("Tick " + reached + ": score " + g.getScore() + ", balls " + g.getRemainingBalls()
+                    + ", blocks " + g.getRemainingBlocks());
+            return;
+        }
+        SimulationStats stats = player.playToEnd();
+        System.out.println(stats);
+        System.out.println("Matches recording: " + player.matchesRecording());
+    }
+}
@@ -0,0 +1,185 @@
+
+package game;
+
+import biuoop.KeyboardSensor;
+import entities.Ball;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The ReplayRecorder class records a game session into a compact binary stream that a ReplayPlayer can
+ * re-simulate headless, tick for tick. It stands between the real keyboard and the paddle: at the start of
+ * every tick it reads the paddle keys once, writes them to the stream, and answers the paddle with exactly the
+ * state it wrote, so a key pressed in the middle of a tick cannot make the replay differ from the session.
+ * <p>
+ * The stream starts with the settings that decide the initial state of the game (the seed, tick rate, ball
+ * count, multiball mode and collision mode), followed by the paddle keys as runs of ticks with the same keys held, and ends
+ * with the number of ticks and the final counter values, written when the recorder is closed.
+ * </p>
+ */
+public class ReplayRecorder implements KeyboardSensor, Closeable {
+    static final int MAGIC = 0x41524B52; // "ARKR"
+    static final int VERSION = 2;        // Version 1 had no collision mode, its balls all used POINT
+    static final int LEFT = 1;           // Key bit of the left arrow
+    static final int RIGHT = 2;          // Key bit of the right arrow
+    static final int END_OF_TICKS = 0xFF; // Written in place of the keys of a run after the last tick
+
+    private final DataOutputStream out;
+    private KeyboardSensor source; // The keyboard the keys are read from
+    private Game game;             // The game being recorded
+    private boolean started;       // Whether the header was written
+    private boolean closed;
+    private int keys;              // Key bits of the current tick
+    private int runKeys;           // Key bits of the run being counted
+    private long runLength;        // Number of ticks in the run being counted
+    private long ticks;            // Number of ticks recorded
+
+    /**
+     * Constructs a new ReplayRecorder writing to the given stream.
+     *
+     * @param out the stream the recording is written to; it is closed when the recorder is closed
+     */
+    public ReplayRecorder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Attaches this recorder to a game and the keyboard that controls it. Called by Game.setRecorder.
+     *
+     * @param g        the game to record
+     * @param keyboard the keyboard the paddle keys are read from
+     */
+    void attach(Game g, KeyboardSensor keyboard) {
+        this.game = g;
+        this.source = keyboard;
+    }
+
+    /**
+     * Writes the settings that decide the initial state of the game. Called by Game.initialize.
+     *
+     * @param seeded    whether the launch angles are varied by a seed
+     * @param seed      the seed, ignored when not seeded
+     * @param tickRate  the number of ticks per second
+     * @param ballCount the number of balls launched
+     * @param multiball whether the balls are stored in a BallSystem
+     * @param mode      the way the balls detect collisions
+     */
+    void start(boolean seeded, long seed, int tickRate, int ballCount, boolean multiball, Ball.CollisionMode mode) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeBoolean(seeded);
+            out.writeLong(seed);
+            out.writeInt(tickRate);
+            out.writeInt(ballCount);
+            out.writeBoolean(multiball);
+            out.writeByte(mode.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.started = true;
+    }
+
+    /**
+     * Reads the paddle keys for the next tick and records them. Called by Game.tick before the sprites move.
+     */
+    void recordTick() {
+        if (closed) {
+            return;
+        }
+        keys = (source.isPressed(LEFT_KEY) ? LEFT : 0) | (source.isPressed(RIGHT_KEY) ? RIGHT : 0);
+        if (runLength > 0 && keys != runKeys) {
+            writeRun();
+        }
+        runKeys = keys;
+        runLength++;
+        ticks++;
+    }
+
+    /**
+     * Returns the number of ticks recorded so far.
+     *
+     * @return the recorded tick count
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns whether a key is pressed. The paddle keys are answered with the state recorded for the current
+     * tick, any other key is read from the keyboard directly.
+     *
+     * @param key the key to check
+     * @return true if the key is pressed
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (keys & LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (keys & RIGHT) != 0;
+        }
+        return source != null && source.isPressed(key);
+    }
+
+    /**
+     * Ends the recording: writes the last run, the tick count and the final counter values of the game, and
+     * closes the stream. Called by the game when it is over; closing again has no effect.
+     *
+     * @throws IOException if the recording cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (started) {
+                if (runLength > 0) {
+                    writeRun();
+                }
+                out.writeByte(END_OF_TICKS);
+                out.writeLong(ticks);
+                out.writeInt(game.getScore());
+                out.writeInt(game.getRemainingBlocks());
+                out.writeInt(game.getRemainingBalls());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the run being counted as its key bits followed by its length.
+     */
+    private void writeRun() {
+        try {
+            out.writeByte(runKeys);
+            writeVarLong(runLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runLength = 0;
+    }
+
+    /**
+     * Writes a non-negative number in as few bytes as it needs, seven bits per byte.
+     *
+     * @param v the number to write
+     * @throws IOException if the number cannot be written
+     */
+    private void writeVarLong(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+}
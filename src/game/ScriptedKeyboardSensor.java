@@ -0,0 +1,53 @@
+
+package game;
+
+import biuoop.KeyboardSensor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The ScriptedKeyboardSensor class is a KeyboardSensor that is not connected to any window.
+ * Keys are pressed and released by code, which lets the game run headless: with no keys pressed it
+ * acts as a no-op keyboard, and a driver (a bot, a test or a replay) can press keys between ticks.
+ */
+public class ScriptedKeyboardSensor implements KeyboardSensor {
+    private final Set<String> pressed; // Keys that are currently held down
+
+    /**
+     * Constructs a new ScriptedKeyboardSensor with no keys pressed.
+     */
+    public ScriptedKeyboardSensor() {
+        this.pressed = new HashSet<>();
+    }
+
+    /**
+     * Presses a key, which stays pressed until it is released.
+     *
+     * @param key the key to press, e.g. KeyboardSensor.LEFT_KEY
+     */
+    public void press(String key) {
+        this.pressed.add(key);
+    }
+
+    /**
+     * Releases a key.
+     *
+     * @param key the key to release
+     */
+    public void release(String key) {
+        this.pressed.remove(key);
+    }
+
+    /**
+     * Releases all keys.
+     */
+    public void releaseAll() {
+        this.pressed.clear();
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        return this.pressed.contains(key);
+    }
+}
@@ -0,0 +1,94 @@
+
+package game;
+
+/**
+ * The SimulationStats class holds the outcome of a headless game run: how many ticks were simulated,
+ * how long it took, and the final values of the game counters.
+ */
+public class SimulationStats {
+    private final long ticks;
+    private final long elapsedNanos;
+    private final int score;
+    private final int remainingBalls;
+    private final int remainingBlocks;
+
+    /**
+     * Constructs a new SimulationStats.
+     *
+     * @param ticks           The number of ticks simulated.
+     * @param elapsedNanos    The wall-clock time the ticks took, in nanoseconds.
+     * @param score           The final score.
+     * @param remainingBalls  The number of balls left in the game.
+     * @param remainingBlocks The number of breakable blocks left in the game.
+     */
+    public SimulationStats(long ticks, long elapsedNanos, int score, int remainingBalls, int remainingBlocks) {
+        this.ticks = ticks;
+        this.elapsedNanos = elapsedNanos;
+        this.score = score;
+        this.remainingBalls = remainingBalls;
+        this.remainingBlocks = remainingBlocks;
+    }
+
+    /**
+     * Returns the number of ticks simulated.
+     *
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the wall-clock time the simulation took.
+     *
+     * @return The elapsed time, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the simulation speed, in simulated frames per wall-clock second.
+     *
+     * @return The number of ticks per second, or 0 if no time was measured.
+     */
+    public double getTicksPerSecond() {
+        if (this.elapsedNanos <= 0) {
+            return 0;
+        }
+        return this.ticks * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the final score.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns the number of balls left in the game.
+     *
+     * @return The remaining balls.
+     */
+    public int getRemainingBalls() {
+        return this.remainingBalls;
+    }
+
+    /**
+     * Returns the number of breakable blocks left in the game.
+     *
+     * @return The remaining blocks.
+     */
+    public int getRemainingBlocks() {
+        return this.remainingBlocks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ticks=%d elapsed=%.3fs ticks/s=%.0f score=%d balls=%d blocks=%d",
+                ticks, elapsedNanos / 1e9, getTicksPerSecond(), score, remainingBalls, remainingBlocks);
+    }
+}
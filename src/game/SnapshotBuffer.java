@@ -0,0 +1,132 @@
+package game;
+
+/**
+ * The SnapshotBuffer class is a ring buffer of the most recent world snapshots of a game, in tick order.
+ * When it is full, adding a snapshot drops the oldest one. Looking up the snapshot nearest before a tick is a
+ * binary search, so a replay can find where to restore from without walking the buffer.
+ */
+public class SnapshotBuffer {
+    private final WorldSnapshot[] entries;
+    private int head;  // Index of the oldest snapshot
+    private int size;  // Number of snapshots held
+
+    /**
+     * Constructs a new, empty SnapshotBuffer.
+     *
+     * @param capacity the largest number of snapshots held
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public SnapshotBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Snapshot buffer capacity must be positive.");
+        }
+        this.entries = new WorldSnapshot[capacity];
+    }
+
+    /**
+     * Adds a snapshot after the newest one, dropping the oldest snapshot if the buffer is full.
+     *
+     * @param s the snapshot to add
+     * @throws IllegalArgumentException if the snapshot is not newer than the newest one held
+     */
+    public void add(WorldSnapshot s) {
+        if (size > 0 && s.getTick() <= newest().getTick()) {
+            throw new IllegalArgumentException("Snapshots must be added in tick order.");
+        }
+        if (size == entries.length) {
+            entries[head] = s;
+            head = (head + 1) % entries.length;
+        } else {
+            entries[(head + size) % entries.length] = s;
+            size++;
+        }
+    }
+
+    /**
+     * Returns the number of snapshots held.
+     *
+     * @return the snapshot count
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the largest number of snapshots held.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.entries.length;
+    }
+
+    /**
+     * Returns a snapshot by its position in the buffer.
+     *
+     * @param i the position, 0 for the oldest snapshot
+     * @return the snapshot
+     * @throws IndexOutOfBoundsException if there is no snapshot at that position
+     */
+    public WorldSnapshot get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Snapshot " + i + " of " + size + ".");
+        }
+        return entries[(head + i) % entries.length];
+    }
+
+    /**
+     * Returns the newest snapshot.
+     *
+     * @return the newest snapshot, or null if the buffer is empty
+     */
+    public WorldSnapshot newest() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    /**
+     * Returns the newest snapshot taken at or before the given tick.
+     *
+     * @param tick the tick
+     * @return the snapshot, or null if every snapshot held is newer
+     */
+    public WorldSnapshot floor(long tick) {
+        int lo = 0;
+        int hi = size - 1;
+        WorldSnapshot found = null;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            WorldSnapshot s = get(mid);
+            if (s.getTick() <= tick) {
+                found = s;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops every snapshot taken after the given tick, e.g. when a restored game is played differently.
+     *
+     * @param tick the last tick to keep snapshots of
+     */
+    public void discardAfter(long tick) {
+        while (size > 0 && newest().getTick() > tick) {
+            entries[(head + size - 1) % entries.length] = null;
+            size--;
+        }
+    }
+
+    /**
+     * Drops every snapshot.
+     */
+    public void clear() {
+        while (size > 0) {
+            entries[head] = null;
+            head = (head + 1) % entries.length;
+            size--;
+        }
+        head = 0;
+    }
+}
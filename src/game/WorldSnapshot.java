@@ -0,0 +1,340 @@
+package game;
+
+import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The WorldSnapshot class holds the full state of a game at one tick: the balls still in play, which blocks are
+ * left, where the paddle is and the three counters. Game.restore puts a game back into that state, so a
+ * replay can continue from the snapshot instead of simulating every tick before it.
+ * <p>
+ * Blocks are stored as one flag per block of the layout and balls as parallel arrays, so a snapshot takes a
+ * few bytes per block and a few dozen per ball. Snapshots are immutable and can be written to a stream and
+ * read back.
+ * </p>
+ */
+public final class WorldSnapshot {
+    private static final int MAGIC = 0x41524B53; // "ARKS"
+
+    private final long tick;
+    private final boolean multiball;
+    private final boolean finished;
+    private final double paddleX;    // Upper-left corner of the paddle
+    private final double paddleY;
+    private final boolean[] blocks;  // Whether each block of the layout is still in play, in creation order
+    private final int[] ballIndex;   // Index of each ball in Game.getBalls(), or its slot in multiball mode
+    private final double[] ballX;
+    private final double[] ballY;
+    private final double[] ballDx;
+    private final double[] ballDy;
+    private final int[] ballRadius;
+    private final int[] ballColor;   // ARGB value of each ball's color
+    private final int remainingBlocks;
+    private final int remainingBalls;
+    private final int score;
+
+    /**
+     * Constructs a new WorldSnapshot. The arrays are kept, not copied. Called by Game.snapshot.
+     *
+     * @param tick            the tick the snapshot was taken at
+     * @param multiball       whether the balls are stored in a BallSystem
+     * @param finished        whether the end-of-game score was applied
+     * @param paddleX         the x-coordinate of the paddle's upper-left corner
+     * @param paddleY         the y-coordinate of the paddle's upper-left corner
+     * @param blocks          whether each block of the layout is still in play
+     * @param ballIndex       the index of each ball in play
+     * @param ballX           the x-coordinate of each ball's center
+     * @param ballY           the y-coordinate of each ball's center
+     * @param ballDx          the x-component of each ball's velocity
+     * @param ballDy          the y-component of each ball's velocity
+     * @param ballRadius      the radius of each ball
+     * @param ballColor       the ARGB color of each ball
+     * @param remainingBlocks the value of the block counter
+     * @param remainingBalls  the value of the ball counter
+     * @param score           the value of the score counter
+     */
+    WorldSnapshot(long tick, boolean multiball, boolean finished, double paddleX, double paddleY, boolean[] blocks,
+                  int[] ballIndex, double[] ballX, double[] ballY, double[] ballDx, double[] ballDy,
+                  int[] ballRadius, int[] ballColor, int remainingBlocks, int remainingBalls, int score) {
+        this.tick = tick;
+        this.multiball = multiball;
+        this.finished = finished;
+        this.paddleX = paddleX;
+        this.paddleY = paddleY;
+        this.blocks = blocks;
+        this.ballIndex = ballIndex;
+        this.ballX = ballX;
+        this.ballY = ballY;
+        this.ballDx = ballDx;
+        this.ballDy = ballDy;
+        this.ballRadius = ballRadius;
+        this.ballColor = ballColor;
+        this.remainingBlocks = remainingBlocks;
+        this.remainingBalls = remainingBalls;
+        this.score = score;
+    }
+
+    /**
+     * Returns the tick the snapshot was taken at.
+     *
+     * @return the number of ticks the game had simulated
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns whether the balls were stored in a BallSystem.
+     *
+     * @return true for a multiball game
+     */
+    public boolean isMultiball() {
+        return this.multiball;
+    }
+
+    /**
+     * Returns whether the end-of-game score had been applied.
+     *
+     * @return true if the game was finished
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Returns the x-coordinate of the paddle's upper-left corner.
+     *
+     * @return the x-coordinate
+     */
+    public double getPaddleX() {
+        return this.paddleX;
+    }
+
+    /**
+     * Returns the y-coordinate of the paddle's upper-left corner.
+     *
+     * @return the y-coordinate
+     */
+    public double getPaddleY() {
+        return this.paddleY;
+    }
+
+    /**
+     * Returns the number of blocks in the layout, whether in play or not.
+     *
+     * @return the block count of the layout
+     */
+    public int getBlockCount() {
+        return this.blocks.length;
+    }
+
+    /**
+     * Returns whether a block of the layout was still in play.
+     *
+     * @param i the index of the block, in the order the blocks were created
+     * @return true if the block was in play
+     */
+    public boolean isBlockInPlay(int i) {
+        return this.blocks[i];
+    }
+
+    /**
+     * Returns the number of balls in play.
+     *
+     * @return the ball count
+     */
+    public int getBallCount() {
+        return this.ballX.length;
+    }
+
+    /**
+     * Returns the index of a ball in Game.getBalls(), or its slot in the BallSystem for a multiball game.
+     *
+     * @param i the ball, from 0 to getBallCount() - 1
+     * @return the index of the ball
+     */
+    public int getBallIndex(int i) {
+        return this.ballIndex[i];
+    }
+
+    /**
+     * Returns the x-coordinate of a ball's center.
+     *
+     * @param i the ball
+     * @return the x-coordinate
+     */
+    public double getBallX(int i) {
+        return this.ballX[i];
+    }
+
+    /**
+     * Returns the y-coordinate of a ball's center.
+     *
+     * @param i the ball
+     * @return the y-coordinate
+     */
+    public double getBallY(int i) {
+        return this.ballY[i];
+    }
+
+    /**
+     * Returns the x-component of a ball's velocity.
+     *
+     * @param i the ball
+     * @return the x-component
+     */
+    public double getBallDx(int i) {
+        return this.ballDx[i];
+    }
+
+    /**
+     * Returns the y-component of a ball's velocity.
+     *
+     * @param i the ball
+     * @return the y-component
+     */
+    public double getBallDy(int i) {
+        return this.ballDy[i];
+    }
+
+    /**
+     * Returns the radius of a ball.
+     *
+     * @param i the ball
+     * @return the radius
+     */
+    public int getBallRadius(int i) {
+        return this.ballRadius[i];
+    }
+
+    /**
+     * Returns the color of a ball.
+     *
+     * @param i the ball
+     * @return the color
+     */
+    public Color getBallColor(int i) {
+        return new Color(this.ballColor[i], true);
+    }
+
+    /**
+     * Returns the value of the block counter.
+     *
+     * @return the number of breakable blocks left
+     */
+    public int getRemainingBlocks() {
+        return this.remainingBlocks;
+    }
+
+    /**
+     * Returns the value of the ball counter.
+     *
+     * @return the number of balls left
+     */
+    public int getRemainingBalls() {
+        return this.remainingBalls;
+    }
+
+    /**
+     * Returns the value of the score counter.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Writes the snapshot to a stream. The block flags are packed eight to a byte.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(tick);
+        out.writeBoolean(multiball);
+        out.writeBoolean(finished);
+        out.writeDouble(paddleX);
+        out.writeDouble(paddleY);
+        out.writeInt(remainingBlocks);
+        out.writeInt(remainingBalls);
+        out.writeInt(score);
+        out.writeInt(blocks.length);
+        for (int i = 0; i < blocks.length; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < blocks.length; j++) {
+                if (blocks[i + j]) {
+                    bits |= 1 << j;
+                }
+            }
+            out.writeByte(bits);
+        }
+        out.writeInt(ballX.length);
+        for (int i = 0; i < ballX.length; i++) {
+            out.writeInt(ballIndex[i]);
+            out.writeDouble(ballX[i]);
+            out.writeDouble(ballY[i]);
+            out.writeDouble(ballDx[i]);
+            out.writeDouble(ballDy[i]);
+            out.writeInt(ballRadius[i]);
+            out.writeInt(ballColor[i]);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by writeTo.
+     *
+     * @param in the stream to read from
+     * @return the snapshot
+     * @throws IOException if the stream cannot be read or does not hold a snapshot
+     */
+    public static WorldSnapshot readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a world snapshot.");
+        }
+        long tick = in.readLong();
+        boolean multiball = in.readBoolean();
+        boolean finished = in.readBoolean();
+        double paddleX = in.readDouble();
+        double paddleY = in.readDouble();
+        int remainingBlocks = in.readInt();
+        int remainingBalls = in.readInt();
+        int score = in.readInt();
+        int blockCount = in.readInt();
+        if (blockCount < 0) {
+            throw new IOException("Malformed block count in snapshot.");
+        }
+        boolean[] blocks = new boolean[blockCount];
+        for (int i = 0; i < blockCount; i += 8) {
+            int bits = in.readUnsignedByte();
+            for (int j = 0; j < 8 && i + j < blockCount; j++) {
+                blocks[i + j] = (bits & (1 << j)) != 0;
+            }
+        }
+        int n = in.readInt();
+        if (n < 0) {
+            throw new IOException("Malformed ball count in snapshot.");
+        }
+        int[] index = new int[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+        int[] radius = new int[n];
+        int[] color = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = in.readInt();
+            x[i] = in.readDouble();
+            y[i] = in.readDouble();
+            dx[i] = in.readDouble();
+            dy[i] = in.readDouble();
+            radius[i] = in.readInt();
+            color[i] = in.readInt();
+        }
+        return new WorldSnapshot(tick, multiball, finished, paddleX, paddleY, blocks, index, x, y, dx, dy, radius,
+                color, remainingBlocks, remainingBalls, score);
+    }
+}
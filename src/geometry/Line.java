@@ -1,6 +1,7 @@
 
 package geometry;
-import java.util.List;
+import colilision.HitRecord;
+
 import java.util.Random;
 
 /**
@@ -360,20 +361,11 @@ public class Line {
      * @return The closest intersection point to the start of this line, or null if no intersection exists.
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        List<Point> list = rect.intersectionPoints(this);
-        Point closestP = null;
-        double distance = Double.MAX_VALUE;
-
-        for (Point p : list) {
-            if (p == null) {
-                continue;
-            }
-            if (this.isPointOnLine(p) && start.distance(p) < distance) {
-                closestP = p;
-                distance = start.distance(p);
-            }
+        HitRecord hit = new HitRecord();
+        if (!rect.closestIntersection(start.getX(), start.getY(), end.getX(), end.getY(), null, hit)) {
+            return null;
         }
-        return closestP;
+        return new Point(hit.collisionPoint().getX(), hit.collisionPoint().getY());
     }
 
 }
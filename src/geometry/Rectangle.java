@@ -1,6 +1,8 @@
 
 package geometry;
-import biuoop.DrawSurface;
+import colilision.Collidable;
+import colilision.HitRecord;
+import render.Canvas;
 
 import java.awt.Color;
 import java.util.ArrayList;
@@ -10,6 +12,8 @@ import java.util.List;
  * A class representing a rectangle in 2D space.
  */
 public class Rectangle {
+    // Tolerance for comparing floating-point numbers
+    private static final double EPSILON = 0.0001;
     private Point leftBottom;
     private Point leftUp;
     private Point rightBottom;
@@ -60,6 +64,26 @@ public class Rectangle {
         this.color = Color.WHITE;
     }
 
+    /**
+     * Enum naming the four sides of a rectangle, matching the getLeftSide, getRightSide,
+     * getUpperSide and getDownSide accessors.
+     */
+    public enum Side {
+        LEFT,
+        RIGHT,
+        UPPER,
+        DOWN;
+
+        /**
+         * Returns whether this side is parallel to the y-axis.
+         *
+         * @return True for the left and right sides, false otherwise.
+         */
+        public boolean isVertical() {
+            return this == LEFT || this == RIGHT;
+        }
+    }
+
     /**
      * Returns the left-bottom point of this rectangle.
      *
@@ -96,6 +120,26 @@ public class Rectangle {
         return this.rightUp;
     }
 
+    /**
+     * Moves this rectangle, keeping its size, so that its upper-left point is at the given coordinates.
+     * The corner points are updated in place, so moving allocates nothing.
+     *
+     * @param x the new x-coordinate of the upper-left point
+     * @param y the new y-coordinate of the upper-left point
+     */
+    public void moveTo(double x, double y) {
+        double width = getWidth();
+        double height = getHeight();
+        leftUp.setX(x);
+        leftUp.setY(y);
+        leftBottom.setX(x);
+        leftBottom.setY(y - height);
+        rightUp.setX(x + width);
+        rightUp.setY(y);
+        rightBottom.setX(x + width);
+        rightBottom.setY(y - height);
+    }
+
     /**
      * Returns the width of this rectangle.
      *
@@ -192,22 +236,300 @@ public class Rectangle {
         List<Line> list = getRectSides();
         List<Point> intersections = new ArrayList<>();
         for (Line l : list) {
-            if (line.isIntersecting(l)) {
-                Point intersection = line.intersectionWith(l);
-                if (intersection != null) {
-                    intersections.add(intersection);
-                }
+            // intersectionWith already returns null for sides the line does not meet
+            Point intersection = line.intersectionWith(l);
+            if (intersection != null) {
+                intersections.add(intersection);
             }
         }
         return intersections;
     }
 
     /**
-     * Draws this rectangle on the given DrawSurface.
+     * Finds where the segment from (x0, y0) to (x1, y1) first meets the sides of this rectangle, using the
+     * slab method: the segment is clipped against the x and y extents of the rectangle, and the entry
+     * parameter tells both the hit position and the side that was struck. A segment starting inside the
+     * rectangle meets it where it leaves. The result is written into the record only if it is closer than
+     * the collision already stored there, so the same record can be passed to several rectangles in turn.
+     *
+     * @param x0    the x-coordinate of the segment start
+     * @param y0    the y-coordinate of the segment start
+     * @param x1    the x-coordinate of the segment end
+     * @param y1    the y-coordinate of the segment end
+     * @param owner the collidable this rectangle belongs to, stored in the record on a hit
+     * @param hit   the record holding the closest collision found so far
+     * @return true if the record was updated, false otherwise
+     */
+    public boolean closestIntersection(double x0, double y0, double x1, double y1, Collidable owner, HitRecord hit) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared < EPSILON * EPSILON) {
+            return false;
+        }
+        double tolerance = EPSILON / Math.sqrt(lengthSquared);
+
+        double nearX = Double.NEGATIVE_INFINITY;
+        double farX = Double.POSITIVE_INFINITY;
+        if (Math.abs(dx) < EPSILON * EPSILON) {
+            if (x0 < leftBottom.getX() - EPSILON || x0 > rightUp.getX() + EPSILON) {
+                return false;
+            }
+        } else {
+            double t1 = (leftBottom.getX() - x0) / dx;
+            double t2 = (rightUp.getX() - x0) / dx;
+            nearX = Math.min(t1, t2);
+            farX = Math.max(t1, t2);
+        }
+        double nearY = Double.NEGATIVE_INFINITY;
+        double farY = Double.POSITIVE_INFINITY;
+        if (Math.abs(dy) < EPSILON * EPSILON) {
+            if (y0 < leftBottom.getY() - EPSILON || y0 > rightUp.getY() + EPSILON) {
+                return false;
+            }
+        } else {
+            double t1 = (leftBottom.getY() - y0) / dy;
+            double t2 = (rightUp.getY() - y0) / dy;
+            nearY = Math.min(t1, t2);
+            farY = Math.max(t1, t2);
+        }
+
+        double near = Math.max(nearX, nearY);
+        double far = Math.min(farX, farY);
+        if (near > far + tolerance) {
+            return false;
+        }
+
+        double t;
+        Side side;
+        if (near >= -tolerance) {
+            // Entering from outside: the side is the one of the axis whose slab is entered last
+            t = near;
+            if (nearX >= nearY) {
+                side = dx > 0 ? Side.LEFT : Side.RIGHT;
+            } else {
+                side = dy > 0 ? Side.DOWN : Side.UPPER;
+            }
+        } else {
+            // Starting inside: the side is the one of the axis whose slab is left first
+            t = far;
+            if (farX <= farY) {
+                side = dx > 0 ? Side.RIGHT : Side.LEFT;
+            } else {
+                side = dy > 0 ? Side.UPPER : Side.DOWN;
+            }
+        }
+        if (t < -tolerance || t > 1 + tolerance || !(t < hit.getT())) {
+            return false;
+        }
+        double x = x0 + t * dx;
+        double y = y0 + t * dy;
+        boolean corner;
+        if (side.isVertical()) {
+            corner = Math.abs(y - leftBottom.getY()) <= EPSILON || Math.abs(y - rightUp.getY()) <= EPSILON;
+        } else {
+            corner = Math.abs(x - leftBottom.getX()) <= EPSILON || Math.abs(x - rightUp.getX()) <= EPSILON;
+        }
+        hit.set(x, y, t, side, corner, owner);
+        return true;
+    }
+
+    /**
+     * Finds where a circle of the given radius, moving with its center from (x0, y0) to (x1, y1), first
+     * touches this rectangle. This is a segment query against the rectangle grown by the radius with rounded
+     * corners (its Minkowski sum with the circle): two face slabs and four corner circles. The recorded
+     * parameter is the position of the center along the segment, and the recorded point is the contact point
+     * on the rectangle. A contact with a rounded corner is reported as a hit on the side the contact normal
+     * points out of. A circle that already touches the rectangle is reported at parameter 0 only if it moves
+     * further into it, so a ball resting against a side after a bounce can move away freely.
+     *
+     * @param x0     the x-coordinate of the circle center at the segment start
+     * @param y0     the y-coordinate of the circle center at the segment start
+     * @param x1     the x-coordinate of the circle center at the segment end
+     * @param y1     the y-coordinate of the circle center at the segment end
+     * @param radius the radius of the circle; 0 gives the same result as closestIntersection
+     * @param owner  the collidable this rectangle belongs to, stored in the record on a hit
+     * @param hit    the record holding the closest collision found so far
+     * @return true if the record was updated, false otherwise
+     */
+    public boolean closestSweptIntersection(double x0, double y0, double x1, double y1, double radius,
+                                            Collidable owner, HitRecord hit) {
+        if (radius <= 0) {
+            return closestIntersection(x0, y0, x1, y1, owner, hit);
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared < EPSILON * EPSILON) {
+            return false;
+        }
+        double minX = leftBottom.getX();
+        double maxX = rightUp.getX();
+        double minY = leftBottom.getY();
+        double maxY = rightUp.getY();
+
+        // Already touching: only a move deeper into the rectangle counts as a hit
+        double qx = Math.max(minX, Math.min(maxX, x0));
+        double qy = Math.max(minY, Math.min(maxY, y0));
+        double nx = x0 - qx;
+        double ny = y0 - qy;
+        double distanceSquared = nx * nx + ny * ny;
+        if (distanceSquared <= (radius + EPSILON) * (radius + EPSILON)) {
+            if (distanceSquared == 0) {
+                // The center is inside the rectangle itself, fall back to the point query
+                return closestIntersection(x0, y0, x1, y1, owner, hit);
+            }
+            if (nx * dx + ny * dy >= 0 || !(0 < hit.getT())) {
+                return false;
+            }
+            hit.set(qx, qy, 0, sideOfNormal(nx, ny), false, owner);
+            if (qx != x0 && qy != y0) {
+                hit.setCornerNormal(nx, ny); // Touching a corner, not a side
+            }
+            return true;
+        }
+
+        double tolerance = EPSILON / Math.sqrt(lengthSquared);
+        double t = Double.POSITIVE_INFINITY;
+        double cx = 0;
+        double cy = 0;
+        Side side = null;
+
+        // The rectangle widened by the radius: entered through its left or right face
+        double entry = slabEntry(x0, y0, dx, dy, minX - radius, minY, maxX + radius, maxY, tolerance);
+        if (entry < t) {
+            t = entry;
+            side = dx > 0 ? Side.LEFT : Side.RIGHT;
+        }
+        // The rectangle heightened by the radius: entered through its upper or bottom face
+        entry = slabEntry(x0, y0, dx, dy, minX, minY - radius, maxX, maxY + radius, tolerance);
+        if (entry < t) {
+            t = entry;
+            side = dy > 0 ? Side.DOWN : Side.UPPER;
+        }
+        for (int corner = 0; corner < 4; corner++) {
+            double cornerX = corner % 2 == 0 ? minX : maxX;
+            double cornerY = corner < 2 ? minY : maxY;
+            entry = circleEntry(x0 - cornerX, y0 - cornerY, dx, dy, lengthSquared, radius);
+            if (entry < t) {
+                t = entry;
+                cx = cornerX;
+                cy = cornerY;
+                side = null;
+            }
+        }
+
+        if (t > 1 + tolerance || !(t < hit.getT())) {
+            return false;
+        }
+        double centerX = x0 + t * dx;
+        double centerY = y0 + t * dy;
+        boolean roundCorner = side == null;
+        if (roundCorner) {
+            side = sideOfNormal(centerX - cx, centerY - cy);
+        } else if (side.isVertical()) {
+            cx = side == Side.LEFT ? minX : maxX;
+            cy = Math.max(minY, Math.min(maxY, centerY));
+        } else {
+            cx = Math.max(minX, Math.min(maxX, centerX));
+            cy = side == Side.DOWN ? minY : maxY;
+        }
+        hit.set(cx, cy, t, side, false, owner);
+        if (roundCorner) {
+            hit.setCornerNormal(centerX - cx, centerY - cy);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the parameter at which a segment starting outside an axis-aligned box enters it.
+     *
+     * @param x0        the x-coordinate of the segment start
+     * @param y0        the y-coordinate of the segment start
+     * @param dx        the segment extent on the x-axis
+     * @param dy        the segment extent on the y-axis
+     * @param minX      the lower x bound of the box
+     * @param minY      the lower y bound of the box
+     * @param maxX      the upper x bound of the box
+     * @param maxY      the upper y bound of the box
+     * @param tolerance the tolerance on the segment parameter
+     * @return the entry parameter, or infinity if the segment does not enter the box
+     */
+    private static double slabEntry(double x0, double y0, double dx, double dy,
+                                    double minX, double minY, double maxX, double maxY, double tolerance) {
+        double near = Double.NEGATIVE_INFINITY;
+        double far = Double.POSITIVE_INFINITY;
+        if (Math.abs(dx) < EPSILON * EPSILON) {
+            if (x0 < minX || x0 > maxX) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            near = Math.min(t1, t2);
+            far = Math.max(t1, t2);
+        }
+        if (Math.abs(dy) < EPSILON * EPSILON) {
+            if (y0 < minY || y0 > maxY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (near > far + tolerance || near < -tolerance) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return near;
+    }
+
+    /**
+     * Returns the parameter at which a segment starting outside a circle enters it.
+     *
+     * @param mx            the x-coordinate of the segment start, relative to the circle center
+     * @param my            the y-coordinate of the segment start, relative to the circle center
+     * @param dx            the segment extent on the x-axis
+     * @param dy            the segment extent on the y-axis
+     * @param lengthSquared the squared length of the segment
+     * @param radius        the radius of the circle
+     * @return the entry parameter, or infinity if the segment does not enter the circle
+     */
+    private static double circleEntry(double mx, double my, double dx, double dy, double lengthSquared,
+                                      double radius) {
+        double b = mx * dx + my * dy;
+        double c = mx * mx + my * my - radius * radius;
+        if (c <= 0 || b >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double discriminant = b * b - lengthSquared * c;
+        if (discriminant < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (-b - Math.sqrt(discriminant)) / lengthSquared;
+    }
+
+    /**
+     * Returns the side whose outward normal is closest to the given direction.
+     *
+     * @param nx the x component of the direction
+     * @param ny the y component of the direction
+     * @return the matching side
+     */
+    private static Side sideOfNormal(double nx, double ny) {
+        if (Math.abs(nx) >= Math.abs(ny)) {
+            return nx < 0 ? Side.LEFT : Side.RIGHT;
+        }
+        return ny < 0 ? Side.DOWN : Side.UPPER;
+    }
+
+    /**
+     * Draws this rectangle on the given Canvas.
      *
-     * @param surface the DrawSurface to draw on
+     * @param surface the Canvas to draw on
      */
-    public void drawOn(DrawSurface surface) {
+    public void drawOn(Canvas surface) {
         int x = (int) Math.round(leftBottom.getX());
         int y = (int) Math.round(leftBottom.getY()); // Use leftBottom for y-coordinate
         int width = (int) Math.round(getWidth());
@@ -217,4 +539,14 @@ public class Rectangle {
         surface.setColor(Color.black);
         surface.drawRectangle(x, y, width, height);
     }
+
+    /**
+     * Returns the pixels drawn by drawOn, including the outline.
+     *
+     * @return the pixel bounds of this rectangle
+     */
+    public java.awt.Rectangle getPixelBounds() {
+        return new java.awt.Rectangle((int) Math.round(leftBottom.getX()), (int) Math.round(leftBottom.getY()),
+                (int) Math.round(getWidth()) + 1, (int) Math.round(getHeight()) + 1);
+    }
 }
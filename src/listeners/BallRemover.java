@@ -7,22 +7,24 @@ import game.Game;
 import utils.Counter;
 
 /**
- * The BallRemover class is a listener that removes balls from the game when they hit a specified block.
+ * The BallRemover class is a listener that removes balls from the game when they hit a death region block.
  */
-public class BallRemover implements HitListener {
+public class BallRemover implements HitListener, HitEventListener {
     private Game game;
-    private Block deathRegion;
     private Counter remainingBalls;
 
     /**
      * Constructs a new BallRemover with the specified game, block, and counter.
      * @param g The game to remove balls from.
-     * @param b The block that removes balls.
+     * @param b The block that removes balls; it is marked as a death region. Null if the blocks that remove
+     *          balls are marked already, or there are none.
      * @param c The counter of remaining balls.
      */
     public BallRemover(Game g, Block b, Counter c) {
         game = g;
-        deathRegion = b;
+        if (b != null) {
+            b.setDeathRegion(true);
+        }
         remainingBalls = c;
     }
 
@@ -32,11 +34,23 @@ public class BallRemover implements HitListener {
      * @param hitter
      */
     public void hitEvent(Block beingHit, Ball hitter) {
-        if (beingHit.equals(this.deathRegion)) {
+        if (beingHit.isDeathRegion()) {
             hitter.removeFromGame(game);
             hitter.removeHitListener(this);
             this.remainingBalls.decrease(1);
 
         }
     }
+
+    /**
+     * Handles a hit event by removing the ball from the game if it hit the death region.
+     * @param events The bus holding the event.
+     * @param e      The position of the event.
+     */
+    public void hitEvent(HitEventBus events, int e) {
+        if (events.getBlock(e).isDeathRegion() && events.isBallInGame(e)) {
+            events.removeBall(e, game);
+            this.remainingBalls.decrease(1);
+        }
+    }
 }
@@ -6,17 +6,14 @@ import entities.Block;
 import game.Game;
 import utils.Counter;
 
-import java.util.ArrayList;
-
 /**
  * The listeners.BlockRemover class is in charge of removing blocks from the game,
  * as well as keeping count of the number of blocks that remain.
  */
 
-public class BlockRemover implements HitListener {
+public class BlockRemover implements HitListener, HitEventListener {
     private Game game;
     private Counter remainingBlocks;
-    private ArrayList<Block> unbreakableBlocks;
 
     /**
      * Constructs a new listeners.BlockRemover with the specified game and counter.
@@ -29,23 +26,15 @@ public class BlockRemover implements HitListener {
         this.remainingBlocks = remainingBlocks;
     }
 
-    /**
-     * Processes the collision of the ball with an unbreakable block.
-     *
-     * @param list
-     */
-    public void processUnremovedBlockCollision(ArrayList<Block> list) {
-        unbreakableBlocks = list;
-    }
-
     /**
      * This method is called whenever the beingHit object is hit.
+     * Blocks that are not breakable, e.g. the frame, are left in the game.
      *
      * @param beingHit
      * @param hitter
      */
     public void hitEvent(Block beingHit, Ball hitter) {
-        if (!unbreakableBlocks.contains(beingHit)) {
+        if (beingHit.isBreakable()) {
             if (!beingHit.ballColorMatch(hitter)) {
                 beingHit.removeFromGame(game);
                 beingHit.removeHitListener(this);
@@ -54,4 +43,21 @@ public class BlockRemover implements HitListener {
             }
         }
     }
+
+    /**
+     * Removes the block of a hit event, unless it is unbreakable, was already removed or has the color of the
+     * ball, and gives the ball the block's color.
+     *
+     * @param events The bus holding the event.
+     * @param e      The position of the event.
+     */
+    public void hitEvent(HitEventBus events, int e) {
+        Block beingHit = events.getBlock(e);
+        if (beingHit.isInGame() && beingHit.isBreakable()
+                && !beingHit.colorMatch(events.getBallColor(e))) {
+            beingHit.removeFromGame(game);
+            remainingBlocks.decrease(1);
+            events.setBallColor(e, beingHit.getCollisionRectangle().getColor());
+        }
+    }
 }
@@ -0,0 +1,299 @@
+package listeners;
+
+import entities.Ball;
+import entities.BallSystem;
+import entities.Block;
+import game.Game;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The HitEventBus class collects the hits of a whole game in one place. A block that is hit appends a record to
+ * a ring buffer of primitive arrays: the id of the block, the id of the ball, the ball's slot in a BallSystem,
+ * the tick and the sides struck. At the end of the tick dispatch() hands every record, in the order they were
+ * published, to every subscribed listener, in the order they subscribed.
+ * <p>
+ * Publishing a hit allocates nothing once the buffer has grown to the busiest tick, and subscribing a listener
+ * is a single call however many blocks and balls there are. Since listeners run after the tick, a block that
+ * is hit stays solid until the tick ends; listeners check isInGame to act on it only once.
+ * </p>
+ */
+public class HitEventBus {
+    /** Side bit of a hit on the left or right side of a block. */
+    public static final int VERTICAL = 1;
+    /** Side bit of a hit on the upper or bottom side of a block. */
+    public static final int HORIZONTAL = 2;
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private final List<Block> blocks = new ArrayList<>();         // Blocks by id
+    private final List<Ball> balls = new ArrayList<>();           // Balls by id
+    private final List<BallSystem> systems = new ArrayList<>();   // Ball systems by id
+    private final List<HitEventListener> listeners = new ArrayList<>();
+    private int[] blockIds;
+    private int[] ballIds;  // Id of the ball, or of its ball system when the slot is not negative
+    private int[] slots;    // Slot of the ball in its ball system, -1 for a Ball
+    private long[] ticks;
+    private byte[] sides;   // VERTICAL, HORIZONTAL or both
+    private int head;       // Position of the oldest event
+    private int size;       // Number of events waiting for dispatch
+    private long tick;      // Tick of the events published now
+
+    /**
+     * Constructs a new, empty HitEventBus.
+     */
+    public HitEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty HitEventBus with room for the given number of events before it has to grow.
+     *
+     * @param capacity the initial capacity, rounded up to a power of two
+     */
+    public HitEventBus(int capacity) {
+        int c = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.blockIds = new int[c];
+        this.ballIds = new int[c];
+        this.slots = new int[c];
+        this.ticks = new long[c];
+        this.sides = new byte[c];
+    }
+
+    /**
+     * Registers a block, so it can publish hits.
+     *
+     * @param b the block
+     * @return the id of the block
+     */
+    public int register(Block b) {
+        blocks.add(b);
+        return blocks.size() - 1;
+    }
+
+    /**
+     * Registers a ball, so hits by it can be published.
+     *
+     * @param b the ball
+     * @return the id of the ball
+     */
+    public int register(Ball b) {
+        balls.add(b);
+        return balls.size() - 1;
+    }
+
+    /**
+     * Registers a ball under the id of another ball it takes the place of, as when a game is restored, so the
+     * bus does not grow with every restore.
+     *
+     * @param id the id of the ball replaced
+     * @param b  the ball
+     */
+    public void replace(int id, Ball b) {
+        balls.set(id, b);
+    }
+
+    /**
+     * Registers a ball system, so hits by its balls can be published.
+     *
+     * @param s the ball system
+     * @return the id of the ball system
+     */
+    public int register(BallSystem s) {
+        systems.add(s);
+        return systems.size() - 1;
+    }
+
+    /**
+     * Adds a listener, called for every event from the next dispatch on.
+     *
+     * @param hl the listener
+     */
+    public void subscribe(HitEventListener hl) {
+        listeners.add(hl);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param hl the listener
+     */
+    public void unsubscribe(HitEventListener hl) {
+        listeners.remove(hl);
+    }
+
+    /**
+     * Sets the tick recorded with the events published from now on.
+     *
+     * @param t the tick being simulated
+     */
+    public void setTick(long t) {
+        this.tick = t;
+    }
+
+    /**
+     * Appends a hit to the buffer, growing it if it is full. Hits by a ball that was never added to a game are
+     * not published.
+     *
+     * @param block  the block that was hit
+     * @param hitter the ball that hit it
+     * @param side   the sides struck, VERTICAL, HORIZONTAL or both
+     */
+    public void publish(Block block, Ball hitter, int side) {
+        if (hitter.getHitEventId() < 0) {
+            return;
+        }
+        if (size == blockIds.length) {
+            grow();
+        }
+        int i = (head + size) & (blockIds.length - 1);
+        size++;
+        blockIds[i] = block.getHitEventId();
+        ballIds[i] = hitter.getHitEventId();
+        slots[i] = hitter.getHitEventSlot();
+        ticks[i] = tick;
+        sides[i] = (byte) side;
+    }
+
+    /**
+     * Doubles the capacity of the buffer, moving the events to the start of the arrays.
+     */
+    private void grow() {
+        int c = blockIds.length;
+        blockIds = unwrap(blockIds, c);
+        ballIds = unwrap(ballIds, c);
+        slots = unwrap(slots, c);
+        long[] t = new long[2 * c];
+        byte[] s = new byte[2 * c];
+        for (int k = 0; k < size; k++) {
+            t[k] = ticks[(head + k) & (c - 1)];
+            s[k] = sides[(head + k) & (c - 1)];
+        }
+        ticks = t;
+        sides = s;
+        head = 0;
+    }
+
+    /**
+     * Copies the events of an array into a new array of twice its length, oldest first.
+     *
+     * @param a the array
+     * @param c the length of the array
+     * @return the new array
+     */
+    private int[] unwrap(int[] a, int c) {
+        int[] b = Arrays.copyOf(a, 2 * c);
+        if (head != 0) {
+            System.arraycopy(a, head, b, 0, c - head);
+            System.arraycopy(a, 0, b, c - head, head);
+        }
+        return b;
+    }
+
+    /**
+     * Hands every event waiting in the buffer to every listener, oldest event first, and empties the buffer.
+     * Ball systems then drop the balls removed by the listeners.
+     */
+    public void dispatch() {
+        while (size > 0) {
+            int e = head;
+            for (int k = 0; k < listeners.size(); k++) {
+                listeners.get(k).hitEvent(this, e);
+            }
+            head = (head + 1) & (blockIds.length - 1);
+            size--;
+        }
+        for (int k = 0; k < systems.size(); k++) {
+            systems.get(k).compactRemoved();
+        }
+    }
+
+    /**
+     * Returns the number of events waiting for dispatch.
+     *
+     * @return the event count
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the block of an event.
+     *
+     * @param e the position of the event
+     * @return the block that was hit
+     */
+    public Block getBlock(int e) {
+        return blocks.get(blockIds[e]);
+    }
+
+    /**
+     * Returns the tick of an event.
+     *
+     * @param e the position of the event
+     * @return the tick the hit happened in
+     */
+    public long getTick(int e) {
+        return ticks[e];
+    }
+
+    /**
+     * Returns the sides struck in an event.
+     *
+     * @param e the position of the event
+     * @return VERTICAL, HORIZONTAL or both
+     */
+    public int getSide(int e) {
+        return sides[e];
+    }
+
+    /**
+     * Returns whether the ball of an event is still in the game.
+     *
+     * @param e the position of the event
+     * @return true if the ball was not removed
+     */
+    public boolean isBallInGame(int e) {
+        return slots[e] < 0 ? balls.get(ballIds[e]).isInGame() : !systems.get(ballIds[e]).isRemoved(slots[e]);
+    }
+
+    /**
+     * Returns the current color of the ball of an event.
+     *
+     * @param e the position of the event
+     * @return the color of the ball
+     */
+    public Color getBallColor(int e) {
+        return slots[e] < 0 ? balls.get(ballIds[e]).getColor() : systems.get(ballIds[e]).getColor(slots[e]);
+    }
+
+    /**
+     * Sets the color of the ball of an event.
+     *
+     * @param e the position of the event
+     * @param c the new color
+     */
+    public void setBallColor(int e, Color c) {
+        if (slots[e] < 0) {
+            balls.get(ballIds[e]).setColor(c);
+        } else {
+            systems.get(ballIds[e]).setColor(slots[e], c);
+        }
+    }
+
+    /**
+     * Removes the ball of an event from the game.
+     *
+     * @param e the position of the event
+     * @param g the game to remove the ball from
+     */
+    public void removeBall(int e, Game g) {
+        if (slots[e] < 0) {
+            balls.get(ballIds[e]).removeFromGame(g);
+        } else {
+            systems.get(ballIds[e]).removeBall(slots[e]);
+        }
+    }
+}
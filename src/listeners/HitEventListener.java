@@ -0,0 +1,14 @@
+package listeners;
+
+/**
+ * The listeners.HitEventListener interface indicates that objects that implement it
+ * consume the hit events of a HitEventBus at the end of every tick.
+ */
+public interface HitEventListener {
+    /**
+     * This method is called at the end of a tick for every hit event published during it.
+     * @param events The bus holding the event.
+     * @param e      The position of the event in the bus, valid until the method returns.
+     */
+    void hitEvent(HitEventBus events, int e);
+}
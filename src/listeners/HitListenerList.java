@@ -0,0 +1,59 @@
+package listeners;
+
+import entities.Ball;
+import entities.Block;
+
+import java.util.Arrays;
+
+/**
+ * The listeners.HitListenerList class is a HitNotifier that keeps its listeners in an array which is
+ * replaced, never changed, when a listener is added or removed. Notifying the listeners of a hit walks the
+ * current array without copying it, and listeners added or removed during a notification only take part
+ * in the next one.
+ */
+public class HitListenerList implements HitNotifier {
+    private static final HitListener[] EMPTY = new HitListener[0];
+    private HitListener[] listeners = EMPTY;
+
+    @Override
+    public void addHitListener(HitListener hl) {
+        HitListener[] a = Arrays.copyOf(listeners, listeners.length + 1);
+        a[listeners.length] = hl;
+        listeners = a;
+    }
+
+    @Override
+    public void removeHitListener(HitListener hl) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(hl)) {
+                HitListener[] a = new HitListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, a, 0, i);
+                System.arraycopy(listeners, i + 1, a, i, a.length - i);
+                listeners = a;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of listeners.
+     *
+     * @return the listener count
+     */
+    public int size() {
+        return listeners.length;
+    }
+
+    /**
+     * Notifies all listeners that a hit occurred.
+     *
+     * @param beingHit The block that was hit.
+     * @param hitter   The ball that hit the block.
+     */
+    public void notifyHit(Block beingHit, Ball hitter) {
+        HitListener[] a = listeners; // Stays the same array whatever the listeners add or remove
+        for (HitListener hl : a) {
+            hl.hitEvent(beingHit, hitter);
+        }
+    }
+}
@@ -5,15 +5,12 @@ import entities.Ball;
 import entities.Block;
 import utils.Counter;
 
-import java.util.ArrayList;
-
 
 /**
  * The ScoreTrackingListener class is a listener that tracks the score of the player.
  */
-public class ScoreTrackingListener implements HitListener {
+public class ScoreTrackingListener implements HitListener, HitEventListener {
     private Counter currentScore;
-    private ArrayList<Block> unbreakableBlocks;
 
     /**
      * Constructs a new ScoreTrackingListener with the specified counter.
@@ -23,22 +20,29 @@ public class ScoreTrackingListener implements HitListener {
         this.currentScore = scoreCounter;
     }
 
-    /**
-     * Processes the collision of the ball with an unbreakable block.
-     * @param list
-     */
-    public void processUnscoredBlockCollision(ArrayList<Block> list) {
-        unbreakableBlocks = list;
-    }
-
     /**
      * This method is called whenever the beingHit object is hit.
+     * Breaking a block scores its points; blocks that are not breakable score nothing.
      * @param beingHit
      * @param hitter
      */
     public void hitEvent(Block beingHit, Ball hitter) {
-        if (!beingHit.ballColorMatch(hitter) && !unbreakableBlocks.contains(beingHit)) {
-            this.currentScore.increase(5);
+        if (beingHit.isBreakable() && !beingHit.ballColorMatch(hitter)) {
+            this.currentScore.increase(beingHit.getPoints());
+        }
+    }
+
+    /**
+     * Scores a hit event that breaks a block: the block is breakable, still in the game and not of the
+     * ball's color. Must be subscribed before the BlockRemover, which removes the block and recolors the ball.
+     *
+     * @param events The bus holding the event.
+     * @param e      The position of the event.
+     */
+    public void hitEvent(HitEventBus events, int e) {
+        Block beingHit = events.getBlock(e);
+        if (beingHit.isInGame() && beingHit.isBreakable() && !beingHit.colorMatch(events.getBallColor(e))) {
+            this.currentScore.increase(beingHit.getPoints());
         }
     }
 }
@@ -0,0 +1,28 @@
+package render;
+
+import biuoop.DrawSurface;
+import biuoop.GUI;
+
+/**
+ * The BiuoopBackend class renders frames in a biuoop window, one primitive at a time through its DrawSurface.
+ * This is how the game has always been drawn.
+ */
+public class BiuoopBackend implements RenderBackend {
+    private final GUI gui;
+
+    /**
+     * Constructs a new BiuoopBackend.
+     *
+     * @param gui the window to render in
+     */
+    public BiuoopBackend(GUI gui) {
+        this.gui = gui;
+    }
+
+    @Override
+    public void render(DrawCommandList frame) {
+        DrawSurface d = gui.getDrawSurface();
+        frame.replay(new SurfaceCanvas(d));
+        gui.show(d);
+    }
+}
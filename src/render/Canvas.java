@@ -0,0 +1,93 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Image;
+
+/**
+ * The Canvas interface is what sprites draw on. It offers the few primitives the game uses, so the same
+ * drawing code can go to a biuoop window, an off-screen Java2D image, or a DrawCommandList that a
+ * RenderBackend plays back later.
+ */
+public interface Canvas {
+    /**
+     * Returns the width of the canvas in pixels.
+     *
+     * @return the width
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the canvas in pixels.
+     *
+     * @return the height
+     */
+    int getHeight();
+
+    /**
+     * Sets the color of the following primitives.
+     *
+     * @param color the color
+     */
+    void setColor(Color color);
+
+    /**
+     * Fills a rectangle.
+     *
+     * @param x      the x-coordinate of the upper-left corner
+     * @param y      the y-coordinate of the upper-left corner
+     * @param width  the width
+     * @param height the height
+     */
+    void fillRectangle(int x, int y, int width, int height);
+
+    /**
+     * Draws the outline of a rectangle.
+     *
+     * @param x      the x-coordinate of the upper-left corner
+     * @param y      the y-coordinate of the upper-left corner
+     * @param width  the width
+     * @param height the height
+     */
+    void drawRectangle(int x, int y, int width, int height);
+
+    /**
+     * Fills a circle.
+     *
+     * @param x the x-coordinate of the center
+     * @param y the y-coordinate of the center
+     * @param r the radius
+     */
+    void fillCircle(int x, int y, int r);
+
+    /**
+     * Draws a line of text.
+     *
+     * @param x        the x-coordinate of the start of the baseline
+     * @param y        the y-coordinate of the baseline
+     * @param text     the text
+     * @param fontSize the font size
+     */
+    void drawText(int x, int y, String text, int fontSize);
+
+    /**
+     * Draws an image at its own size.
+     *
+     * @param x     the x-coordinate of the upper-left corner
+     * @param y     the y-coordinate of the upper-left corner
+     * @param image the image
+     */
+    void drawImage(int x, int y, Image image);
+
+    /**
+     * Marks the start of a batch: a run of primitives, like the blocks of a level, that the canvas may draw in
+     * another order wherever that leaves every pixel the same. A canvas that draws immediately ignores batches.
+     */
+    default void beginBatch() {
+    }
+
+    /**
+     * Marks the end of the batch started by beginBatch.
+     */
+    default void endBatch() {
+    }
+}
@@ -0,0 +1,414 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.util.Arrays;
+
+/**
+ * The DrawCommandList class is a Canvas that records what is drawn on it instead of drawing it. Each command
+ * keeps the color that was set when it was recorded, so the list can be played back on any Canvas, by any
+ * RenderBackend, with a color change only where the color actually changes.
+ * <p>
+ * Commands are stored in parallel arrays that grow as needed and are reused after clear(), so recording a
+ * frame allocates nothing once the list has grown to the size of a frame.
+ * </p>
+ * <p>
+ * The commands of a batch (see Canvas.beginBatch) are sorted by kind and color when the batch ends, keeping
+ * their order otherwise. A row of blocks then plays back as all its fills, one color after the other, and
+ * then all its outlines, instead of two color changes per block. Only batches of boxes, an opaque filled
+ * rectangle followed by its outline, with every outline in the same color, are sorted, and boxes whose fill
+ * overlaps another box's fill keep their recorded order after the others, so the sorted batch draws exactly
+ * the same pixels; any other batch is played back as recorded.
+ * </p>
+ */
+public class DrawCommandList implements Canvas {
+    /** Command that fills a rectangle: x, y, width, height. */
+    public static final int FILL_RECTANGLE = 0;
+    /** Command that draws the outline of a rectangle: x, y, width, height. */
+    public static final int DRAW_RECTANGLE = 1;
+    /** Command that fills a circle: x, y, radius. */
+    public static final int FILL_CIRCLE = 2;
+    /** Command that draws text: x, y, font size, and the text. */
+    public static final int DRAW_TEXT = 3;
+    /** Command that draws an image: x, y, and the image. */
+    public static final int DRAW_IMAGE = 4;
+
+    private static final int ARGS = 4; // Integer arguments per command
+    private static final long PINNED = 0x7F; // Sort key kind of the commands that keep their recorded order
+    private final int width;
+    private final int height;
+    private int size;
+    private int[] ops;
+    private int[] args;         // ARGS integers per command
+    private Color[] colors;     // Color of each command
+    private Object[] payloads;  // Text or image of each command, null for the others
+    private Color color = Color.BLACK;
+    private int batchStart = -1;  // Index of the first command of the open batch, -1 when none is open
+    private long[] sortKeys = new long[0];   // Scratch space of the batch sort
+    private Color[] batchColors = new Color[8]; // Distinct colors of the batch being sorted, by first use
+    private long[] sweepKeys = new long[0];      // Scratch space of the overlap sweep: boxes by left edge
+    private int[] sweepActive = new int[0];      // Scratch space of the overlap sweep: boxes it is inside
+    private boolean[] pinned = new boolean[0];   // Boxes of the batch being sorted that keep their order
+
+    /**
+     * Constructs a new, empty DrawCommandList for a canvas of the given size.
+     *
+     * @param width  the width of the canvas in pixels
+     * @param height the height of the canvas in pixels
+     */
+    public DrawCommandList(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int c = 64;
+        this.ops = new int[c];
+        this.args = new int[c * ARGS];
+        this.colors = new Color[c];
+        this.payloads = new Object[c];
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public void setColor(Color c) {
+        this.color = c;
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        add(FILL_RECTANGLE, x, y, w, h, null);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        add(DRAW_RECTANGLE, x, y, w, h, null);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        add(FILL_CIRCLE, x, y, r, 0, null);
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        add(DRAW_TEXT, x, y, fontSize, 0, text);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        add(DRAW_IMAGE, x, y, 0, 0, image);
+    }
+
+    @Override
+    public void beginBatch() {
+        if (batchStart < 0) {
+            batchStart = size;
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        if (batchStart >= 0) {
+            sort(batchStart, size);
+            batchStart = -1;
+        }
+    }
+
+    /**
+     * Sorts a range of commands by kind, then by color in the order the colors first appear, keeping the
+     * recorded order of commands with the same kind and color. Boxes pinned by pinOverlappingBoxes come last,
+     * in their recorded order; a range that is not made of boxes is left as it is.
+     *
+     * @param from the first command of the range
+     * @param to   the command after the last one of the range
+     */
+    private void sort(int from, int to) {
+        int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        int pinnedBoxes = pinOverlappingBoxes(from, to);
+        if (pinnedBoxes < 0 || 2 * pinnedBoxes == n) {
+            return;
+        }
+        if (sortKeys.length < n) {
+            sortKeys = new long[Math.max(n, 2 * sortKeys.length)];
+        }
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (pinned[i / 2]) {
+                sortKeys[i] = (PINNED << 56) | i;
+                continue;
+            }
+            Color c = colors[from + i];
+            int id = 0;
+            while (id < distinct && !sameColor(batchColors[id], c)) {
+                id++;
+            }
+            if (id == distinct) {
+                if (distinct == batchColors.length) {
+                    batchColors = Arrays.copyOf(batchColors, 2 * distinct);
+                }
+                batchColors[distinct++] = c;
+            }
+            // Kind, then color, then position: the key orders the batch and makes the sort stable
+            sortKeys[i] = ((long) ops[from + i] << 56) | ((long) id << 32) | i;
+        }
+        Arrays.fill(batchColors, 0, distinct, null);
+        Arrays.sort(sortKeys, 0, n);
+
+        // Permute the commands through the free space at the end of the arrays
+        while (ops.length < to + n) {
+            grow();
+        }
+        for (int i = 0; i < n; i++) {
+            int src = from + (int) (sortKeys[i] & 0xFFFFFFFFL);
+            int dst = to + i;
+            ops[dst] = ops[src];
+            System.arraycopy(args, src * ARGS, args, dst * ARGS, ARGS);
+            colors[dst] = colors[src];
+            payloads[dst] = payloads[src];
+        }
+        System.arraycopy(ops, to, ops, from, n);
+        System.arraycopy(args, to * ARGS, args, from * ARGS, n * ARGS);
+        System.arraycopy(colors, to, colors, from, n);
+        System.arraycopy(payloads, to, payloads, from, n);
+        Arrays.fill(colors, to, to + n, null);
+        Arrays.fill(payloads, to, to + n, null);
+    }
+
+    /**
+     * Checks that a range of commands is made of boxes, and pins the boxes that must keep their recorded
+     * order. A box is an opaque filled rectangle followed by its outline, and the outlines of the range all
+     * have the same color. Then a box only ever covers the outline of another box along its own outline, so
+     * two boxes whose fills do not overlap draw the same pixels in either order, and all the fills may be
+     * drawn before all the outlines. Boxes whose fill overlaps another box's fill are marked in pinned; they
+     * are found by sweeping over the boxes from left to right.
+     *
+     * @param from the first command of the range
+     * @param to   the command after the last one of the range
+     * @return the number of pinned boxes, or -1 if the range is not made of boxes
+     */
+    private int pinOverlappingBoxes(int from, int to) {
+        int n = to - from;
+        if (n % 2 != 0) {
+            return -1;
+        }
+        int boxes = n / 2;
+        Color outline = colors[from + 1];
+        for (int b = 0; b < boxes; b++) {
+            int fill = from + 2 * b;
+            if (ops[fill] != FILL_RECTANGLE || ops[fill + 1] != DRAW_RECTANGLE || !opaque(colors[fill])
+                    || !opaque(colors[fill + 1]) || !sameColor(colors[fill + 1], outline)
+                    || args[fill * ARGS + 2] <= 0 || args[fill * ARGS + 3] <= 0) {
+                return -1;
+            }
+            for (int k = 0; k < ARGS; k++) {
+                if (args[fill * ARGS + k] != args[(fill + 1) * ARGS + k]) {
+                    return -1;
+                }
+            }
+        }
+        if (pinned.length < boxes) {
+            int c = Math.max(boxes, 2 * pinned.length);
+            pinned = new boolean[c];
+            sweepKeys = new long[c];
+            sweepActive = new int[c];
+        }
+        Arrays.fill(pinned, 0, boxes, false);
+        for (int b = 0; b < boxes; b++) {
+            sweepKeys[b] = ((long) args[(from + 2 * b) * ARGS] << 32) | b;
+        }
+        Arrays.sort(sweepKeys, 0, boxes);
+
+        int active = 0;
+        int count = 0;
+        for (int k = 0; k < boxes; k++) {
+            int b = (int) sweepKeys[k];
+            int a = (from + 2 * b) * ARGS;
+            int kept = 0;
+            for (int j = 0; j < active; j++) {
+                int c = sweepActive[j];
+                int ca = (from + 2 * c) * ARGS;
+                if (args[ca] + args[ca + 2] <= args[a]) {
+                    continue; // Ends left of this box and of every box after it
+                }
+                sweepActive[kept++] = c;
+                if (args[ca + 1] < args[a + 1] + args[a + 3] && args[a + 1] < args[ca + 1] + args[ca + 3]) {
+                    count += (pinned[c] ? 0 : 1) + (pinned[b] ? 0 : 1);
+                    pinned[c] = true;
+                    pinned[b] = true;
+                }
+            }
+            active = kept;
+            sweepActive[active++] = b;
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether a color is opaque.
+     *
+     * @param c the color, may be null
+     * @return true if the color is not null and fully opaque
+     */
+    private static boolean opaque(Color c) {
+        return c != null && c.getAlpha() == 255;
+    }
+
+    /**
+     * Returns whether two colors are the same, either may be null.
+     *
+     * @param a the first color
+     * @param b the second color
+     * @return true if both are null or equal
+     */
+    private static boolean sameColor(Color a, Color b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+    /**
+     * Records a command with the current color.
+     *
+     * @param op      the command
+     * @param a0      the first argument
+     * @param a1      the second argument
+     * @param a2      the third argument
+     * @param a3      the fourth argument
+     * @param payload the text or image, or null
+     */
+    private void add(int op, int a0, int a1, int a2, int a3, Object payload) {
+        if (size == ops.length) {
+            grow();
+        }
+        int i = size++;
+        int a = i * ARGS;
+        ops[i] = op;
+        args[a] = a0;
+        args[a + 1] = a1;
+        args[a + 2] = a2;
+        args[a + 3] = a3;
+        colors[i] = color;
+        payloads[i] = payload;
+    }
+
+    /**
+     * Doubles the capacity of every array.
+     */
+    private void grow() {
+        int c = ops.length * 2;
+        ops = Arrays.copyOf(ops, c);
+        args = Arrays.copyOf(args, c * ARGS);
+        colors = Arrays.copyOf(colors, c);
+        payloads = Arrays.copyOf(payloads, c);
+    }
+
+    /**
+     * Removes every command, keeping the capacity, and resets the color to black.
+     */
+    public void clear() {
+        Arrays.fill(colors, 0, size, null);
+        Arrays.fill(payloads, 0, size, null);
+        size = 0;
+        color = Color.BLACK;
+        batchStart = -1;
+    }
+
+    /**
+     * Returns the number of commands recorded.
+     *
+     * @return the command count
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the kind of a command, e.g. FILL_CIRCLE.
+     *
+     * @param i the index of the command
+     * @return the command
+     */
+    public int getOp(int i) {
+        return ops[i];
+    }
+
+    /**
+     * Returns an integer argument of a command.
+     *
+     * @param i the index of the command
+     * @param k the index of the argument, from 0 to 3
+     * @return the argument
+     */
+    public int getArg(int i, int k) {
+        return args[i * ARGS + k];
+    }
+
+    /**
+     * Returns the color of a command.
+     *
+     * @param i the index of the command
+     * @return the color set when the command was recorded
+     */
+    public Color getColor(int i) {
+        return colors[i];
+    }
+
+    /**
+     * Returns the number of color changes a replay of the commands makes.
+     *
+     * @return the color change count
+     */
+    public int colorChanges() {
+        int changes = 0;
+        Color current = null;
+        for (int i = 0; i < size; i++) {
+            if (ops[i] != DRAW_IMAGE && !sameColor(current, colors[i])) {
+                current = colors[i];
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Plays the commands back on a canvas, in the order they were recorded. The color is set only where it
+     * differs from the color of the command before, so a run of same-colored primitives costs one color change.
+     *
+     * @param target the canvas to draw on
+     */
+    public void replay(Canvas target) {
+        Color current = null;
+        for (int i = 0; i < size; i++) {
+            if (ops[i] != DRAW_IMAGE && !sameColor(current, colors[i])) {
+                current = colors[i];
+                target.setColor(current);
+            }
+            int a = i * ARGS;
+            switch (ops[i]) {
+                case FILL_RECTANGLE:
+                    target.fillRectangle(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case DRAW_RECTANGLE:
+                    target.drawRectangle(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case FILL_CIRCLE:
+                    target.fillCircle(args[a], args[a + 1], args[a + 2]);
+                    break;
+                case DRAW_TEXT:
+                    target.drawText(args[a], args[a + 1], (String) payloads[i], args[a + 2]);
+                    break;
+                default:
+                    target.drawImage(args[a], args[a + 1], (Image) payloads[i]);
+                    break;
+            }
+        }
+    }
+}
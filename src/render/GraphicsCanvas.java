@@ -0,0 +1,88 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+
+/**
+ * The GraphicsCanvas class is a Canvas that draws with Java2D graphics, e.g. those of a BufferedImage.
+ * The font of each size is created once and reused.
+ */
+public class GraphicsCanvas implements Canvas {
+    private static final int MAX_CACHED_FONT_SIZE = 128;
+    private final Graphics2D g;
+    private final int width;
+    private final int height;
+    private final Font[] fonts = new Font[MAX_CACHED_FONT_SIZE + 1]; // Fonts by size, created on first use
+
+    /**
+     * Constructs a new GraphicsCanvas.
+     *
+     * @param g      the graphics to draw with
+     * @param width  the width of the drawing area in pixels
+     * @param height the height of the drawing area in pixels
+     */
+    public GraphicsCanvas(Graphics2D g, int width, int height) {
+        this.g = g;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        g.setColor(color);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        g.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        g.drawRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        g.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        g.setFont(font(fontSize));
+        g.drawString(text, x, y);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        g.drawImage(image, x, y, null);
+    }
+
+    /**
+     * Returns the font of the given size.
+     *
+     * @param size the font size
+     * @return the font
+     */
+    private Font font(int size) {
+        if (size < 0 || size > MAX_CACHED_FONT_SIZE) {
+            return new Font(Font.SANS_SERIF, Font.PLAIN, size);
+        }
+        if (fonts[size] == null) {
+            fonts[size] = new Font(Font.SANS_SERIF, Font.PLAIN, size);
+        }
+        return fonts[size];
+    }
+}
@@ -0,0 +1,69 @@
+package render;
+
+import biuoop.DrawSurface;
+import biuoop.GUI;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * The Java2DBackend class renders frames into an off-screen BufferedImage with Java2D, with antialiasing off
+ * and the color set once per run of same-colored primitives. With a window, the finished image is shown
+ * with a single drawImage call, so the window's own per-primitive path is bypassed; without one, the image
+ * can be read with getImage(), e.g. to save screenshots or to measure rasterization alone.
+ */
+public class Java2DBackend implements RenderBackend {
+    private final GUI gui; // The window the frames are shown in, null to keep them off-screen
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final GraphicsCanvas canvas;
+
+    /**
+     * Constructs a new Java2DBackend that keeps the frames off-screen.
+     *
+     * @param width  the width of a frame in pixels
+     * @param height the height of a frame in pixels
+     */
+    public Java2DBackend(int width, int height) {
+        this(null, width, height);
+    }
+
+    /**
+     * Constructs a new Java2DBackend that shows the frames in a window.
+     *
+     * @param gui    the window to show the frames in, or null to keep them off-screen
+     * @param width  the width of a frame in pixels
+     * @param height the height of a frame in pixels
+     */
+    public Java2DBackend(GUI gui, int width, int height) {
+        this.gui = gui;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        this.canvas = new GraphicsCanvas(graphics, width, height);
+    }
+
+    /**
+     * Returns the image the last frame was rendered into.
+     *
+     * @return the frame image
+     */
+    public BufferedImage getImage() {
+        return this.image;
+    }
+
+    @Override
+    public void render(DrawCommandList frame) {
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        frame.replay(canvas);
+        if (gui != null) {
+            DrawSurface d = gui.getDrawSurface();
+            d.drawImage(0, 0, image);
+            gui.show(d);
+        }
+    }
+}
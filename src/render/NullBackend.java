@@ -0,0 +1,45 @@
+package render;
+
+/**
+ * The NullBackend class draws nothing. It only counts the frames, commands and color changes it is given, so
+ * benchmarks can measure what it costs to record a frame without any rasterization.
+ */
+public class NullBackend implements RenderBackend {
+    private long frames;   // Frames rendered
+    private long commands; // Commands in all frames rendered
+    private long colorChanges; // Color changes a replay of all frames rendered would make
+
+    @Override
+    public void render(DrawCommandList frame) {
+        frames++;
+        commands += frame.size();
+        colorChanges += frame.colorChanges();
+    }
+
+    /**
+     * Returns the number of frames rendered.
+     *
+     * @return the frame count
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the number of commands in all frames rendered.
+     *
+     * @return the command count
+     */
+    public long getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * Returns the number of color changes a replay of all frames rendered would make.
+     *
+     * @return the color change count
+     */
+    public long getColorChanges() {
+        return this.colorChanges;
+    }
+}
@@ -0,0 +1,14 @@
+package render;
+
+/**
+ * The RenderBackend interface turns a frame, recorded as a DrawCommandList, into pixels. Backends differ in
+ * where the pixels go and how the primitives are drawn, while the sprites only ever see a Canvas.
+ */
+public interface RenderBackend {
+    /**
+     * Draws a frame and presents it.
+     *
+     * @param frame the commands of the frame, in drawing order
+     */
+    void render(DrawCommandList frame);
+}
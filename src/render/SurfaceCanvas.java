@@ -0,0 +1,62 @@
+package render;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+
+/**
+ * The SurfaceCanvas class is a Canvas that draws on a biuoop DrawSurface.
+ */
+public class SurfaceCanvas implements Canvas {
+    private final DrawSurface surface;
+
+    /**
+     * Constructs a new SurfaceCanvas drawing on the given surface.
+     *
+     * @param surface the surface to draw on
+     */
+    public SurfaceCanvas(DrawSurface surface) {
+        this.surface = surface;
+    }
+
+    @Override
+    public int getWidth() {
+        return surface.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return surface.getHeight();
+    }
+
+    @Override
+    public void setColor(Color color) {
+        surface.setColor(color);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        surface.fillRectangle(x, y, width, height);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        surface.drawRectangle(x, y, width, height);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        surface.fillCircle(x, y, r);
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        surface.drawText(x, y, text, fontSize);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        surface.drawImage(x, y, image);
+    }
+}
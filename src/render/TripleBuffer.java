@@ -0,0 +1,77 @@
+package render;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TripleBuffer class hands values from one producer thread to one consumer thread without locks.
+ * It holds three slots: the producer fills its back slot and publishes it, the consumer reads its front slot,
+ * and the third slot holds the newest published value between them. Publishing and acquiring swap slots with
+ * a single atomic operation, so neither thread ever waits for the other: a slow consumer skips to the newest
+ * value, and a fast producer overwrites values nobody read.
+ *
+ * @param <T> the type of the slots, reused over and over; a slot must not be touched after it is handed over
+ */
+public class TripleBuffer<T> {
+    private static final int FRESH = 4; // Set in state when the middle slot holds a value not yet acquired
+    private final Object[] slots;
+    private final AtomicInteger state;  // Index of the middle slot, plus FRESH
+    private int back;                   // The producer's slot
+    private int front;                  // The consumer's slot
+
+    /**
+     * Constructs a new TripleBuffer over three distinct slots.
+     *
+     * @param first  the producer's first back slot
+     * @param second the first middle slot
+     * @param third  the consumer's first front slot
+     */
+    public TripleBuffer(T first, T second, T third) {
+        this.slots = new Object[] {first, second, third};
+        this.back = 0;
+        this.state = new AtomicInteger(1);
+        this.front = 2;
+    }
+
+    /**
+     * Returns the slot the producer fills next. Called by the producer only.
+     *
+     * @return the back slot
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) slots[back];
+    }
+
+    /**
+     * Publishes the back slot as the newest value and gives the producer another slot to fill.
+     * Called by the producer only.
+     */
+    public void publish() {
+        back = state.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Returns whether the consumer has taken the newest published value. It is then done with every value
+     * published before, so whatever only those values refer to may be changed again. Called by the producer
+     * only.
+     *
+     * @return true if no published value is waiting to be acquired
+     */
+    public boolean isNewestAcquired() {
+        return (state.get() & FRESH) == 0;
+    }
+
+    /**
+     * Takes the newest published value, if one was published since the last call. Called by the consumer only.
+     *
+     * @return the newest value, or null if nothing new was published
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((state.get() & FRESH) == 0) {
+            return null;
+        }
+        front = state.getAndSet(front) & ~FRESH;
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,194 @@
+package ui;
+
+import entities.Block;
+import entities.Sprite;
+import geometry.Rectangle;
+import render.Canvas;
+import render.DrawCommandList;
+import render.GraphicsCanvas;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The BlockLayer class caches the static part of a frame, the background and the blocks, in an off-screen
+ * image, so a frame draws it with a single image instead of one rectangle per block. Blocks do not move, so
+ * the image only changes when a block is added or removed, and then only the region that block covered is
+ * painted again. The moving sprites are drawn on top of the image every frame.
+ * <p>
+ * The image is created when the layer is first drawn, so a layer that only tracks which blocks are in play,
+ * like the one of a simulation thread handing its frames to a render thread, costs no pixels.
+ * </p>
+ */
+public class BlockLayer {
+    private final Rectangle background;
+    private final int width;
+    private final int height;
+    private BufferedImage image;             // Created on the first drawOn
+    private Graphics2D graphics;
+    private GraphicsCanvas canvas;           // Draws on graphics
+    private DrawCommandList commands;        // Batches the blocks of a repaint by color before they are drawn
+    private final Set<Block> blocks;        // Blocks in the layer, in the order they are painted
+    private final List<java.awt.Rectangle> dirty; // Regions to paint again before the next frame
+    private boolean fullRepaint;             // Whether the whole image must be painted again
+    private long version;                    // Increased whenever a block is added or removed
+
+    /**
+     * Constructs a new, empty BlockLayer.
+     *
+     * @param background the rectangle drawn behind the blocks, usually the whole screen
+     * @param width      the width of the screen in pixels
+     * @param height     the height of the screen in pixels
+     */
+    public BlockLayer(Rectangle background, int width, int height) {
+        this.background = background;
+        this.width = width;
+        this.height = height;
+        this.blocks = new LinkedHashSet<>();
+        this.dirty = new ArrayList<>();
+        this.fullRepaint = true;
+    }
+
+    /**
+     * Adds a block to the layer.
+     *
+     * @param b the block to add
+     */
+    public void add(Block b) {
+        if (blocks.add(b)) {
+            invalidate(b);
+            version++;
+        }
+    }
+
+    /**
+     * Removes a block from the layer, e.g. when a ball breaks it.
+     *
+     * @param b the block to remove
+     */
+    public void remove(Block b) {
+        if (blocks.remove(b)) {
+            invalidate(b);
+            version++;
+        }
+    }
+
+    /**
+     * Removes every block from the layer.
+     */
+    public void clear() {
+        blocks.clear();
+        dirty.clear();
+        fullRepaint = true;
+        version++;
+    }
+
+    /**
+     * Makes the layer hold exactly the given blocks, adding and removing only those that differ.
+     *
+     * @param live the blocks to hold
+     */
+    public void setBlocks(Block[] live) {
+        Set<Block> target = new HashSet<>(Arrays.asList(live));
+        for (Block b : new ArrayList<>(blocks)) {
+            if (!target.contains(b)) {
+                remove(b);
+            }
+        }
+        for (Block b : live) {
+            add(b);
+        }
+    }
+
+    /**
+     * Returns the blocks in the layer.
+     *
+     * @return a new array of the blocks, in the order they are painted
+     */
+    public Block[] getBlocks() {
+        return blocks.toArray(new Block[0]);
+    }
+
+    /**
+     * Returns a number that changes whenever a block is added or removed, so a caller can tell cheaply
+     * whether the blocks changed since it last looked.
+     *
+     * @return the version of the block set
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns whether a sprite is drawn by this layer, and must not be drawn again on top of it.
+     *
+     * @param s the sprite
+     * @return true if the sprite is a block in the layer
+     */
+    public boolean contains(Sprite s) {
+        return s instanceof Block && blocks.contains(s);
+    }
+
+    /**
+     * Marks the region a block covers to be painted again.
+     *
+     * @param b the block that was added or removed
+     */
+    private void invalidate(Block b) {
+        if (!fullRepaint) {
+            dirty.add(b.getCollisionRectangle().getPixelBounds());
+        }
+    }
+
+    /**
+     * Paints the invalidated regions of the image again and draws the image on the given canvas.
+     *
+     * @param d the canvas to draw on
+     */
+    public void drawOn(Canvas d) {
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+            canvas = new GraphicsCanvas(graphics, width, height);
+            commands = new DrawCommandList(width, height);
+            fullRepaint = true;
+        }
+        if (fullRepaint) {
+            graphics.setClip(null);
+            paint(null);
+            fullRepaint = false;
+        } else {
+            for (java.awt.Rectangle region : dirty) {
+                graphics.setClip(region);
+                paint(region);
+            }
+        }
+        dirty.clear();
+        d.drawImage(0, 0, image);
+    }
+
+    /**
+     * Paints the background and the blocks inside a region of the image. The blocks are drawn as one batch,
+     * so the blocks that do not overlap take one color change per color instead of two per block.
+     *
+     * @param region the region to paint, or null for the whole image
+     */
+    private void paint(java.awt.Rectangle region) {
+        commands.clear();
+        background.drawOn(commands);
+        commands.beginBatch();
+        for (Block b : blocks) {
+            if (region == null || region.intersects(b.getCollisionRectangle().getPixelBounds())) {
+                b.drawOn(commands);
+            }
+        }
+        commands.endBatch();
+        commands.replay(canvas);
+    }
+}
@@ -1,19 +1,48 @@
-
 package ui;
 
-import biuoop.DrawSurface;
 import entities.Sprite;
+import game.FrameStats;
 import game.Game;
 import geometry.Rectangle;
+import render.Canvas;
+import render.GraphicsCanvas;
 import utils.Counter;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.function.BooleanSupplier;
+
 /**
- * The ScoreIndicator class is a sprite that displays the player's score on the screen.
+ * The ScoreIndicator class is a sprite that displays the player's score on the screen, and optionally the
+ * balls and blocks left and the frame rate.
+ * <p>
+ * The bar is drawn into an image, and each frame only draws that image. The image is drawn again only when a
+ * value shown on it changes, which the counters tell by their versions, so the text is not formatted or laid
+ * out every frame; the frame rate is taken about once a second. Two images are kept and drawn into in turn,
+ * since a frame published to a render thread may still be drawing the other one: the spare image is drawn
+ * into only once the render thread is done with the frames that showed it, and the bar shows its old values
+ * until then.
+ * </p>
  */
 public class ScoreIndicator implements Sprite {
+    private static final int FONT_SIZE = 20;
+    private static final long FPS_INTERVAL_NANOS = 1_000_000_000L; // How often the frame rate shown is taken
     private final Rectangle rectangle;
     private final Counter score;
+    private Counter lives;           // Balls left, null if not shown
+    private Counter blocks;          // Blocks left, null if not shown
+    private FrameStats frameStats;   // Frame rate, null if not shown
+    private BooleanSupplier released; // Whether the spare image is no longer drawn, null without a render thread
+    private final BufferedImage[] images = new BufferedImage[2]; // Drawn into in turn, created on first use
+    private int current = -1;        // Index of the image shown, -1 until the first frame
+    private boolean stale;           // Whether the values shown changed other than through the counters
+    private long scoreVersion;       // Versions and values the image shows
+    private long livesVersion;
+    private long blocksVersion;
+    private int shownFps;
+    private int fps;                 // Frame rate to show, taken every FPS_INTERVAL_NANOS
+    private long fpsTime;            // System.nanoTime() when fps was taken
 
     /**
      * Constructs a new ScoreIndicator with the specified rectangle and counter.
@@ -25,17 +54,98 @@ public class ScoreIndicator implements Sprite {
         this.score = c;
     }
 
+    /**
+     * Shows the number of balls left.
+     * @param c The counter of remaining balls, or null to hide it.
+     */
+    public void setLives(Counter c) {
+        this.lives = c;
+        this.stale = true;
+    }
+
+    /**
+     * Shows the number of blocks left.
+     * @param c The counter of remaining blocks, or null to hide it.
+     */
+    public void setBlocks(Counter c) {
+        this.blocks = c;
+        this.stale = true;
+    }
+
+    /**
+     * Shows the frame rate.
+     * @param stats The frame statistics of the game loop, or null to hide it.
+     */
+    public void setFrameStats(FrameStats stats) {
+        this.frameStats = stats;
+        this.fps = 0;
+        this.fpsTime = System.nanoTime();
+        this.stale = true;
+    }
+
+    /**
+     * Tells the indicator when the frames it draws are rendered on another thread.
+     * @param r Whether the render thread is done with every frame but the newest one published, or null when
+     *          the frames are rendered as soon as they are drawn.
+     */
+    public void setReleased(BooleanSupplier r) {
+        this.released = r;
+    }
 
     @Override
-    public void drawOn(DrawSurface surface) {
-        surface.setColor(Color.WHITE);
-        surface.fillRectangle((int) rectangle.getUpperLeft().getX(), (int) rectangle.getUpperLeft().getY(),
-                (int) rectangle.getWidth(), (int) rectangle.getHeight());
-
-        surface.setColor(Color.BLACK);
-        surface.drawText((int) (rectangle.getUpperLeft().getX() + rectangle.getWidth() / 2),
-                (int) (rectangle.getUpperLeft().getY() + rectangle.getHeight() * 9 / 10),
-                String.format("Score: %d", score.getValue()), 20);
+    public void drawOn(Canvas surface) {
+        if (frameStats != null && System.nanoTime() - fpsTime >= FPS_INTERVAL_NANOS) {
+            this.fps = (int) Math.round(frameStats.getRecentFramesPerSecond());
+            this.fpsTime = System.nanoTime();
+        }
+        boolean changed = current < 0 || stale || scoreVersion != score.getVersion()
+                || (lives != null && livesVersion != lives.getVersion())
+                || (blocks != null && blocksVersion != blocks.getVersion())
+                || (frameStats != null && shownFps != fps);
+        // The spare image may still be drawn by a frame the render thread holds; until then keep the old one
+        if (changed && (current < 0 || released == null || released.getAsBoolean())) {
+            int spare = current < 0 ? 0 : 1 - current;
+            paint(spare);
+            this.current = spare;
+        }
+        surface.drawImage((int) rectangle.getUpperLeft().getX(), (int) rectangle.getUpperLeft().getY(),
+                images[current]);
+    }
+
+    /**
+     * Draws the bar and its values into one of the images.
+     *
+     * @param index the index of the image
+     */
+    private void paint(int index) {
+        int w = (int) rectangle.getWidth();
+        int h = (int) rectangle.getHeight();
+        if (images[index] == null) {
+            images[index] = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g = images[index].createGraphics();
+        Canvas c = new GraphicsCanvas(g, w, h);
+        c.setColor(Color.WHITE);
+        c.fillRectangle(0, 0, w, h);
+
+        c.setColor(Color.BLACK);
+        int y = h * 9 / 10;
+        scoreVersion = score.getVersion();
+        c.drawText(w / 2, y, "Score: " + score.getValue(), FONT_SIZE);
+        if (lives != null) {
+            livesVersion = lives.getVersion();
+            c.drawText(w / 20, y, "Lives: " + lives.getValue(), FONT_SIZE);
+        }
+        if (blocks != null) {
+            blocksVersion = blocks.getVersion();
+            c.drawText(w / 4, y, "Blocks: " + blocks.getValue(), FONT_SIZE);
+        }
+        if (frameStats != null) {
+            shownFps = fps;
+            c.drawText(w * 4 / 5, y, "FPS: " + fps, FONT_SIZE);
+        }
+        g.dispose();
+        this.stale = false;
     }
 
 
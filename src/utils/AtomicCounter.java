@@ -0,0 +1,58 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AtomicCounter class is a Counter that can be updated and read from any thread. The count and its
+ * version are packed into a single atomic word, so an update is one compare-and-set and a snapshot always
+ * holds a count with exactly its own version.
+ */
+public class AtomicCounter extends Counter {
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+    private final AtomicLong state = new AtomicLong(); // Version in the upper half, count in the lower half
+
+    /**
+     * Constructs a new AtomicCounter with an initial count of 0.
+     */
+    public AtomicCounter() {
+        super();
+    }
+
+    @Override
+    public void increase(int number) {
+        if (number == 0) {
+            return;
+        }
+        long s;
+        long next;
+        do {
+            s = state.get();
+            next = (((s >>> 32) + 1) << 32) | ((int) s + number) & COUNT_MASK;
+        } while (!state.compareAndSet(s, next));
+    }
+
+    @Override
+    public void decrease(int number) {
+        increase(-number);
+    }
+
+    @Override
+    public int getValue() {
+        return (int) state.get();
+    }
+
+    /**
+     * Returns a number that changes whenever the count changes. It wraps around after 2^32 changes.
+     * @return The version of the count.
+     */
+    @Override
+    public long getVersion() {
+        return state.get() >>> 32;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        long s = state.get();
+        return new Snapshot((int) s, s >>> 32);
+    }
+}
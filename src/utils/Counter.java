@@ -1,10 +1,76 @@
-
 package utils;
 /**
  * The Counter class is a simple class that is used for counting things.
+ * <p>
+ * This counter is meant for a single thread. Counters shared between threads are made with Kind.ATOMIC or
+ * Kind.STRIPED, which any code taking a Counter accepts.
+ * </p>
  */
 public class Counter {
     private int count;
+    private long version; // Increased whenever the count changes
+
+    /**
+     * The Kind enum selects a counter implementation.
+     */
+    public enum Kind {
+        /** A plain Counter, for a single thread. */
+        PLAIN,
+        /** An AtomicCounter: every update is one compare-and-set, and reads are consistent. */
+        ATOMIC,
+        /** A StripedCounter: updates from many threads at once do not contend. */
+        STRIPED;
+
+        /**
+         * Constructs a new counter of this kind, with a count of 0.
+         * @return The new counter.
+         */
+        public Counter create() {
+            switch (this) {
+                case ATOMIC:
+                    return new AtomicCounter();
+                case STRIPED:
+                    return new StripedCounter();
+                default:
+                    return new Counter();
+            }
+        }
+    }
+
+    /**
+     * The Snapshot class holds the count of a counter together with the version it had.
+     */
+    public static final class Snapshot {
+        private final int value;
+        private final long version;
+
+        /**
+         * Constructs a new Snapshot.
+         * @param value   The count.
+         * @param version The version of the count.
+         */
+        public Snapshot(int value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+
+        /**
+         * Returns the count.
+         * @return The count.
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the version of the count.
+         * @return The version.
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
     /**
      * Constructs a new Counter with an initial count of 0.
      */
@@ -17,6 +83,9 @@ public class Counter {
      */
     public void increase(int number) {
         count += number;
+        if (number != 0) {
+            version++;
+        }
     }
 
     /**
@@ -25,6 +94,9 @@ public class Counter {
      */
     public void decrease(int number) {
         count -= number;
+        if (number != 0) {
+            version++;
+        }
     }
     /**
      * Returns the current value of the counter.
@@ -33,4 +105,22 @@ public class Counter {
     public int getValue() {
         return count;
     }
+
+    /**
+     * Returns a number that changes whenever the count changes, so a caller can tell cheaply whether it
+     * changed since it last looked. A count read after the version is at least as new as that version.
+     * @return The version of the count.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the count together with its version, e.g. for a metrics exporter.
+     * @return A snapshot whose count is at least as new as its version.
+     */
+    public Snapshot snapshot() {
+        long v = getVersion();
+        return new Snapshot(getValue(), v);
+    }
 }
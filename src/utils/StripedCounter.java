@@ -0,0 +1,48 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The StripedCounter class is a Counter for counts updated from many threads at once, e.g. by the workers of
+ * a parallel physics step. Updates go to striped cells, so threads do not contend on a single word, and the
+ * count is summed over the cells when it is read. Reads are therefore slower than updates.
+ * <p>
+ * An update adds to the count before it advances the version, and a read takes the version before the count,
+ * so a count read after a version is at least as new as that version. A reader that redraws when the version
+ * changes thus never keeps a stale count.
+ * </p>
+ */
+public class StripedCounter extends Counter {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder version = new LongAdder(); // Number of updates
+
+    /**
+     * Constructs a new StripedCounter with an initial count of 0.
+     */
+    public StripedCounter() {
+        super();
+    }
+
+    @Override
+    public void increase(int number) {
+        if (number != 0) {
+            count.add(number);
+            version.increment();
+        }
+    }
+
+    @Override
+    public void decrease(int number) {
+        increase(-number);
+    }
+
+    @Override
+    public int getValue() {
+        return (int) count.sum();
+    }
+
+    @Override
+    public long getVersion() {
+        return version.sum();
+    }
+}